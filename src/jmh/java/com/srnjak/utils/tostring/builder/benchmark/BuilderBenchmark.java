@@ -0,0 +1,101 @@
+package com.srnjak.utils.tostring.builder.benchmark;
+
+import com.srnjak.utils.tostring.builder.TextStyle;
+import com.srnjak.utils.tostring.builder.ToStringByFieldsBuilder;
+import com.srnjak.utils.tostring.builder.ToStringByGettersBuilder;
+import com.srnjak.utils.tostring.builder.ToStringRenderer;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders flat, deep and wide beans with the builders, compared to
+ * Apache's <code>ReflectionToStringBuilder</code> and a hand-written
+ * <code>toString</code>.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuilderBenchmark {
+
+    @Param({"flat", "deep", "wide"})
+    private String shape;
+
+    private Object bean;
+
+    private ToStringRenderer byFields;
+    private ToStringRenderer byGetters;
+
+    @Setup
+    public void setUp() {
+        switch (shape) {
+            case "flat":
+                bean = new Fixtures.FlatBean(42);
+                break;
+            case "deep":
+                bean = new Fixtures.DeepBean();
+                break;
+            case "wide":
+                bean = new Fixtures.WideBean();
+                break;
+            default:
+                throw new IllegalArgumentException(shape);
+        }
+
+        byFields = ToStringRenderer.byFields()
+                .style(TextStyle.DEFAULT_STYLE)
+                .build();
+        byGetters = ToStringRenderer.byGetters()
+                .style(TextStyle.DEFAULT_STYLE)
+                .reflectUpTo(Object.class)
+                .build();
+    }
+
+    @Benchmark
+    public String handWritten() {
+        return bean.toString();
+    }
+
+    @Benchmark
+    public String reflectionToStringBuilder() {
+        return new ReflectionToStringBuilder(
+                bean, ToStringStyle.DEFAULT_STYLE).toString();
+    }
+
+    @Benchmark
+    public String toStringByFieldsBuilder() {
+        return new ToStringByFieldsBuilder(
+                bean, ToStringStyle.DEFAULT_STYLE).toString();
+    }
+
+    @Benchmark
+    public String toStringByGettersBuilder() {
+        return new ToStringByGettersBuilder(
+                bean, ToStringStyle.DEFAULT_STYLE).toString();
+    }
+
+    @Benchmark
+    public String rendererByFields() {
+        return byFields.toString(bean);
+    }
+
+    @Benchmark
+    public String rendererByGetters() {
+        return byGetters.toString(bean);
+    }
+}
@@ -0,0 +1,390 @@
+package com.srnjak.utils.tostring.builder.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Objects rendered by the benchmarks. Each of them has getters and
+ * a hand-written <code>toString</code> in the default style, as the
+ * baseline.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * Bean with a few fields.
+     */
+    public static class FlatBean {
+
+        private long id;
+        private String name;
+        private boolean active;
+        private double score;
+
+        FlatBean(long id) {
+            this.id = id;
+            this.name = "name" + id;
+            this.active = id % 2 == 0;
+            this.score = id / 3.0;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return new StringBuilder(getClass().getName())
+                    .append('@')
+                    .append(Integer.toHexString(System.identityHashCode(this)))
+                    .append("[id=").append(id)
+                    .append(",name=").append(name)
+                    .append(",active=").append(active)
+                    .append(",score=").append(score)
+                    .append(']')
+                    .toString();
+        }
+    }
+
+    public static class Level0 {
+
+        private String level0 = "zero";
+
+        public String getLevel0() {
+            return level0;
+        }
+    }
+
+    public static class Level1 extends Level0 {
+
+        private int level1 = 1;
+
+        public int getLevel1() {
+            return level1;
+        }
+    }
+
+    public static class Level2 extends Level1 {
+
+        private long level2 = 2L;
+
+        public long getLevel2() {
+            return level2;
+        }
+    }
+
+    public static class Level3 extends Level2 {
+
+        private String level3 = "three";
+
+        public String getLevel3() {
+            return level3;
+        }
+    }
+
+    public static class Level4 extends Level3 {
+
+        private double level4 = 4.0;
+
+        public double getLevel4() {
+            return level4;
+        }
+    }
+
+    /**
+     * Bean at the bottom of a deep class hierarchy, with a field per class.
+     */
+    public static class DeepBean extends Level4 {
+
+        private boolean level5 = true;
+
+        public boolean isLevel5() {
+            return level5;
+        }
+
+        @Override
+        public String toString() {
+            return new StringBuilder(getClass().getName())
+                    .append('@')
+                    .append(Integer.toHexString(System.identityHashCode(this)))
+                    .append("[level5=").append(level5)
+                    .append(",level4=").append(getLevel4())
+                    .append(",level3=").append(getLevel3())
+                    .append(",level2=").append(getLevel2())
+                    .append(",level1=").append(getLevel1())
+                    .append(",level0=").append(getLevel0())
+                    .append(']')
+                    .toString();
+        }
+    }
+
+    /**
+     * Bean with many fields.
+     */
+    public static class WideBean {
+
+        private int field00 = 0;
+        private String field01 = "value1";
+        private long field02 = 2000L;
+        private boolean field03 = true;
+        private int field04 = 4;
+        private String field05 = "value5";
+        private long field06 = 6000L;
+        private boolean field07 = false;
+        private int field08 = 8;
+        private String field09 = "value9";
+        private long field10 = 10000L;
+        private boolean field11 = true;
+        private int field12 = 12;
+        private String field13 = "value13";
+        private long field14 = 14000L;
+        private boolean field15 = false;
+        private int field16 = 16;
+        private String field17 = "value17";
+        private long field18 = 18000L;
+        private boolean field19 = true;
+        private int field20 = 20;
+        private String field21 = "value21";
+        private long field22 = 22000L;
+        private boolean field23 = false;
+
+        public int getField00() {
+            return field00;
+        }
+
+        public String getField01() {
+            return field01;
+        }
+
+        public long getField02() {
+            return field02;
+        }
+
+        public boolean isField03() {
+            return field03;
+        }
+
+        public int getField04() {
+            return field04;
+        }
+
+        public String getField05() {
+            return field05;
+        }
+
+        public long getField06() {
+            return field06;
+        }
+
+        public boolean isField07() {
+            return field07;
+        }
+
+        public int getField08() {
+            return field08;
+        }
+
+        public String getField09() {
+            return field09;
+        }
+
+        public long getField10() {
+            return field10;
+        }
+
+        public boolean isField11() {
+            return field11;
+        }
+
+        public int getField12() {
+            return field12;
+        }
+
+        public String getField13() {
+            return field13;
+        }
+
+        public long getField14() {
+            return field14;
+        }
+
+        public boolean isField15() {
+            return field15;
+        }
+
+        public int getField16() {
+            return field16;
+        }
+
+        public String getField17() {
+            return field17;
+        }
+
+        public long getField18() {
+            return field18;
+        }
+
+        public boolean isField19() {
+            return field19;
+        }
+
+        public int getField20() {
+            return field20;
+        }
+
+        public String getField21() {
+            return field21;
+        }
+
+        public long getField22() {
+            return field22;
+        }
+
+        public boolean isField23() {
+            return field23;
+        }
+
+        @Override
+        public String toString() {
+            return new StringBuilder(getClass().getName())
+                    .append('@')
+                    .append(Integer.toHexString(System.identityHashCode(this)))
+                    .append('[')
+                    .append("field00=").append(field00)
+                    .append(",field01=").append(field01)
+                    .append(",field02=").append(field02)
+                    .append(",field03=").append(field03)
+                    .append(",field04=").append(field04)
+                    .append(",field05=").append(field05)
+                    .append(",field06=").append(field06)
+                    .append(",field07=").append(field07)
+                    .append(",field08=").append(field08)
+                    .append(",field09=").append(field09)
+                    .append(",field10=").append(field10)
+                    .append(",field11=").append(field11)
+                    .append(",field12=").append(field12)
+                    .append(",field13=").append(field13)
+                    .append(",field14=").append(field14)
+                    .append(",field15=").append(field15)
+                    .append(",field16=").append(field16)
+                    .append(",field17=").append(field17)
+                    .append(",field18=").append(field18)
+                    .append(",field19=").append(field19)
+                    .append(",field20=").append(field20)
+                    .append(",field21=").append(field21)
+                    .append(",field22=").append(field22)
+                    .append(",field23=").append(field23)
+                    .append(']')
+                    .toString();
+        }
+    }
+
+    /**
+     * Bean holding a big list and a big map.
+     */
+    public static class Container {
+
+        private List<FlatBean> items;
+        private Map<String, FlatBean> index;
+
+        Container(int size) {
+            this.items = new ArrayList<>(size);
+            this.index = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                FlatBean item = new FlatBean(i);
+                this.items.add(item);
+                this.index.put(item.getName(), item);
+            }
+        }
+
+        public List<FlatBean> getItems() {
+            return items;
+        }
+
+        public Map<String, FlatBean> getIndex() {
+            return index;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getName()
+                    + '@' + Integer.toHexString(System.identityHashCode(this))
+                    + "[items=" + items
+                    + ",index=" + index
+                    + ']';
+        }
+    }
+
+    /**
+     * Node of a tree, referencing its parent.
+     */
+    public static class Node {
+
+        private String name;
+        private Node parent;
+        private List<Node> children = new ArrayList<>();
+
+        Node(String name, Node parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+
+        /**
+         * Creates a tree of the given depth, in which every node
+         * has the given number of children.
+         */
+        static Node tree(int depth, int fanOut) {
+            Node root = new Node("root", null);
+            grow(root, depth, fanOut);
+            return root;
+        }
+
+        private static void grow(Node node, int depth, int fanOut) {
+            if (depth == 0) {
+                return;
+            }
+            for (int i = 0; i < fanOut; i++) {
+                Node child = new Node(node.name + "." + i, node);
+                node.children.add(child);
+                grow(child, depth - 1, fanOut);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Node getParent() {
+            return parent;
+        }
+
+        public List<Node> getChildren() {
+            return children;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getName()
+                    + '@' + Integer.toHexString(System.identityHashCode(this))
+                    + "[name=" + name
+                    + ",children=" + children
+                    + ']';
+        }
+    }
+}
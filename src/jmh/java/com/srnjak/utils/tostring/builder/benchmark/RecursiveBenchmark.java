@@ -0,0 +1,125 @@
+package com.srnjak.utils.tostring.builder.benchmark;
+
+import com.srnjak.utils.tostring.builder.RecursiveStyle;
+import com.srnjak.utils.tostring.builder.TextStyle;
+import com.srnjak.utils.tostring.builder.ToStringByFieldsBuilder;
+import com.srnjak.utils.tostring.builder.ToStringRenderer;
+import org.apache.commons.lang3.builder.RecursiveToStringStyle;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders big collections and maps, and recursive graphs with
+ * {@link RecursiveStyle}, compared to Apache's
+ * <code>RecursiveToStringStyle</code> and a hand-written
+ * <code>toString</code>.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecursiveBenchmark {
+
+    /**
+     * Number of the collection elements, or of the graph nodes
+     */
+    @Param({"100", "10000"})
+    private int size;
+
+    @Param({"collections", "graph"})
+    private String shape;
+
+    private Object root;
+
+    private ToStringStyle lang3Style;
+    private RecursiveStyle style;
+    private RecursiveStyle limitedStyle;
+    private ToStringRenderer renderer;
+
+    @Setup
+    public void setUp() {
+        switch (shape) {
+            case "collections":
+                root = new Fixtures.Container(size);
+                break;
+            case "graph":
+                root = Fixtures.Node.tree(depthOf(size, 4), 4);
+                break;
+            default:
+                throw new IllegalArgumentException(shape);
+        }
+
+        lang3Style = new RecursiveToStringStyle() {
+            @Override
+            protected boolean accept(Class<?> clazz) {
+                return clazz.getName().startsWith(
+                        Fixtures.class.getPackage().getName());
+            }
+        };
+        style = RecursiveStyle.builder()
+                .acceptPackages(Fixtures.class.getPackage().getName())
+                .toStringBuilder(ToStringByFieldsBuilder.class)
+                .build();
+        limitedStyle = style.toBuilder()
+                .maxElements(100)
+                .maxLength(64 * 1024)
+                .build();
+        renderer = ToStringRenderer.byFields()
+                .style(TextStyle.builder()
+                        .acceptPackages(Fixtures.class.getPackage().getName())
+                        .build())
+                .build();
+    }
+
+    /**
+     * Returns the depth of a tree with the given fan out,
+     * having about the given number of nodes.
+     */
+    private static int depthOf(int nodes, int fanOut) {
+        int depth = 0;
+        for (long count = 1; count < nodes; count = count * fanOut + 1) {
+            depth++;
+        }
+        return depth;
+    }
+
+    @Benchmark
+    public String handWritten() {
+        return root.toString();
+    }
+
+    @Benchmark
+    public String recursiveToStringStyle() {
+        return new ReflectionToStringBuilder(root, lang3Style).toString();
+    }
+
+    @Benchmark
+    public String recursiveStyle() {
+        return new ToStringByFieldsBuilder(root, style).toString();
+    }
+
+    @Benchmark
+    public String recursiveStyleLimited() {
+        return new ToStringByFieldsBuilder(root, limitedStyle).toString();
+    }
+
+    @Benchmark
+    public String renderer() {
+        return renderer.toString(root);
+    }
+}
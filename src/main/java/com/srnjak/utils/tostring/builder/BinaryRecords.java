@@ -0,0 +1,797 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * <p>Compact binary encoding of the fields appended by
+ * {@link ToStringByFieldsBuilder}, to be turned into the textual form
+ * only on demand.</p>
+ *
+ * <p>The fields are selected as by
+ * {@link ToStringByFieldsBuilder#toString(Object)}, i.e. without transient
+ * and static fields, up to <code>java.lang.Object</code>. Each class is
+ * registered once as a schema, holding the class name and the names and
+ * types of its fields. The names are kept in a string table, so a record
+ * consists of the schema ID, the identity hash code and the values only.
+ * The integral values are written as variable-length integers, the values
+ * of the declared primitive types without a tag. The referenced objects
+ * other than strings, boxed primitives and arrays are written as their
+ * <code>toString</code> value.</p>
+ *
+ * <p>{@link #decode(ByteBuffer)} renders the record in the form of
+ * {@link ToStringStyle#DEFAULT_STYLE}, e.g.
+ * <code>com.example.Person@182f0db[name=John,age=33]</code>, which is
+ * the same as the object would be output by
+ * {@link ToStringByFieldsBuilder#toString(Object, ToStringStyle)}.</p>
+ *
+ * <p>The records refer to the schemas of the instance, which encoded them.
+ * To decode them elsewhere, the schemas are written by
+ * {@link #writeSchemas(ByteBuffer)} and read back by
+ * {@link #readSchemas(ByteBuffer)}. The instance is thread-safe.</p>
+ */
+public final class BinaryRecords {
+
+    /**
+     * Logger
+     */
+    private static final Logger log =
+            Logger.getLogger(BinaryRecords.class.getName());
+
+    /*
+     * Kinds of the values. The values of a declared primitive type are
+     * written without a tag, the other values are preceded by their kind.
+     */
+    private static final byte NULL = 0;
+    private static final byte BOOLEAN = 1;
+    private static final byte BYTE = 2;
+    private static final byte SHORT = 3;
+    private static final byte CHAR = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte STRING = 9;
+    private static final byte ARRAY = 10;
+    private static final byte NOT_AVAILABLE = 11;
+
+    /**
+     * Kind of a field, whose value is preceded by its kind
+     */
+    private static final byte TAGGED = 12;
+
+    /**
+     * Style the records are decoded in
+     */
+    private static final ToStringStyle DECODING_STYLE = new RecordStyle();
+
+    /**
+     * Schemas of the encoded classes
+     */
+    private final ClassValue<Schema> schemas = new ClassValue<>() {
+        @Override
+        protected Schema computeValue(Class<?> type) {
+            return register(type);
+        }
+    };
+
+    /**
+     * Schemas by their ID
+     */
+    private volatile Schema[] schemasById = new Schema[0];
+
+    /**
+     * The string table
+     */
+    private volatile String[] strings = new String[0];
+
+    /**
+     * Indices of the strings in the table
+     */
+    private final Map<String, Integer> stringIndices = new HashMap<>();
+
+    /**
+     * Encodes the given object into the buffer, at its position.
+     * If the buffer has not enough space left, its position is left
+     * unchanged, so the record may be encoded again into a larger buffer.
+     *
+     * @param object the object to be encoded
+     * @param buffer the buffer to write into
+     * @throws IllegalArgumentException if the object or the buffer
+     *              is <code>null</code>
+     * @throws BufferOverflowException if the buffer has not enough space
+     */
+    public void encode(Object object, ByteBuffer buffer) {
+        if (object == null) {
+            throw new IllegalArgumentException(
+                    "The Object passed in should not be null.");
+        }
+        if (buffer == null) {
+            throw new IllegalArgumentException(
+                    "The buffer should not be null.");
+        }
+
+        Schema schema = schemas.get(object.getClass());
+        int start = buffer.position();
+        try {
+            putVarint(buffer, schema.id);
+            buffer.putInt(System.identityHashCode(object));
+            if (schema.array) {
+                putValue(buffer, object, object);
+            } else {
+                for (int i = 0; i < schema.properties.length; i++) {
+                    putField(buffer, schema.kinds[i],
+                            schema.properties[i], object);
+                }
+            }
+        } catch (BufferOverflowException e) {
+            buffer.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Decodes the record at the position of the buffer into
+     * its textual form. The position is moved after the record.
+     *
+     * @param buffer the buffer to read from
+     * @return the textual form of the record
+     * @throws IllegalArgumentException if the buffer is <code>null</code>,
+     *              or the record refers to an unknown schema
+     * @throws BufferUnderflowException if the record is truncated
+     */
+    public String decode(ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException(
+                    "The buffer should not be null.");
+        }
+
+        Schema[] known = this.schemasById;
+        int id = getVarint(buffer);
+        if (id < 0 || id >= known.length) {
+            throw new IllegalArgumentException("Unknown schema: " + id);
+        }
+        Schema schema = known[id];
+        String[] table = this.strings;
+
+        ToStringBuilder builder = new ToStringBuilder(
+                new Record(table[schema.className], buffer.getInt()),
+                DECODING_STYLE);
+        if (schema.array) {
+            builder.append(getValue(buffer));
+        } else {
+            for (int i = 0; i < schema.names.length; i++) {
+                appendField(
+                        builder, table[schema.names[i]], schema.kinds[i],
+                        buffer);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes the string table and the schemas registered so far into
+     * the buffer, at its position. Only the records of these schemas
+     * can be decoded by the instance read back.
+     *
+     * @param buffer the buffer to write into
+     * @throws IllegalArgumentException if the buffer is <code>null</code>
+     * @throws BufferOverflowException if the buffer has not enough space
+     */
+    public synchronized void writeSchemas(ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException(
+                    "The buffer should not be null.");
+        }
+
+        putVarint(buffer, strings.length);
+        for (String string : strings) {
+            putString(buffer, string);
+        }
+
+        putVarint(buffer, schemasById.length);
+        for (Schema schema : schemasById) {
+            putVarint(buffer, schema.className);
+            buffer.put(schema.array ? (byte) 1 : (byte) 0);
+            putVarint(buffer, schema.names.length);
+            for (int i = 0; i < schema.names.length; i++) {
+                putVarint(buffer, schema.names[i]);
+                buffer.put(schema.kinds[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads the string table and the schemas written by
+     * {@link #writeSchemas(ByteBuffer)}. The instance decodes the records
+     * of these schemas, and registers new schemas for the classes
+     * it encodes.
+     *
+     * @param buffer the buffer to read from
+     * @return the instance
+     * @throws IllegalArgumentException if the buffer is <code>null</code>
+     * @throws BufferUnderflowException if the schemas are truncated
+     */
+    public static BinaryRecords readSchemas(ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException(
+                    "The buffer should not be null.");
+        }
+
+        BinaryRecords records = new BinaryRecords();
+
+        String[] table = new String[getVarint(buffer)];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = getString(buffer);
+            records.stringIndices.put(table[i], i);
+        }
+
+        Schema[] known = new Schema[getVarint(buffer)];
+        for (int i = 0; i < known.length; i++) {
+            int className = getVarint(buffer);
+            boolean array = buffer.get() != 0;
+            int[] names = new int[getVarint(buffer)];
+            byte[] kinds = new byte[names.length];
+            for (int j = 0; j < names.length; j++) {
+                names[j] = getVarint(buffer);
+                kinds[j] = buffer.get();
+            }
+            known[i] = new Schema(i, className, array, null, names, kinds);
+        }
+
+        records.strings = table;
+        records.schemasById = known;
+        return records;
+    }
+
+    /**
+     * Registers the schema of the given class.
+     */
+    private synchronized Schema register(Class<?> clazz) {
+        int id = schemasById.length;
+        int className = this.indexOf(clazz.getName());
+
+        Schema schema;
+        if (clazz.isArray()) {
+            schema = new Schema(
+                    id, className, true, null, new int[0], new byte[0]);
+        } else {
+            List<FieldMetadata.FieldProperty> selected = new ArrayList<>();
+            for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+                selected.addAll(Arrays.asList(
+                        FieldMetadata.of(c).select(false, false, null)));
+            }
+
+            FieldMetadata.FieldProperty[] properties =
+                    selected.toArray(new FieldMetadata.FieldProperty[0]);
+            int[] names = new int[properties.length];
+            byte[] kinds = new byte[properties.length];
+            for (int i = 0; i < properties.length; i++) {
+                names[i] = this.indexOf(properties[i].getName());
+                kinds[i] = kindOf(properties[i].getField().getType());
+            }
+            schema = new Schema(
+                    id, className, false, properties, names, kinds);
+        }
+
+        Schema[] registered = Arrays.copyOf(schemasById, id + 1);
+        registered[id] = schema;
+        schemasById = registered;
+        return schema;
+    }
+
+    /**
+     * Provides the index of the string in the table, adding it if needed.
+     */
+    private int indexOf(String string) {
+        Integer index = stringIndices.get(string);
+        if (index != null) {
+            return index;
+        }
+
+        String[] table = Arrays.copyOf(strings, strings.length + 1);
+        table[strings.length] = string;
+        stringIndices.put(string, strings.length);
+        strings = table;
+        return table.length - 1;
+    }
+
+    /**
+     * Writes the value of a field. A value of a reference field, which
+     * could not be read, is written as not available.
+     */
+    private static void putField(
+            ByteBuffer buffer,
+            byte kind,
+            FieldMetadata.FieldProperty property,
+            Object object) {
+
+        try {
+            if (kind == TAGGED) {
+                putValue(buffer, read(property, object), object);
+            } else {
+                putPrimitive(buffer, kind, property.getField(), object);
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads the value of a reference field. The failure is returned
+     * as the marker of an unavailable value.
+     */
+    private static Object read(
+            FieldMetadata.FieldProperty property, Object object)
+            throws IllegalAccessException {
+
+        try {
+            return property.getAccessor().get(object);
+        } catch (RuntimeException e) {
+            log.finer(e::toString);
+            log.finest(() -> ExceptionUtils.getStackTrace(e));
+            RenderMetrics.failed(object);
+
+            return Unavailable.INSTANCE;
+        }
+    }
+
+    /**
+     * Writes the value of a primitive field, without boxing.
+     */
+    private static void putPrimitive(
+            ByteBuffer buffer, byte kind, Field field, Object object)
+            throws IllegalAccessException {
+
+        switch (kind) {
+            case BOOLEAN:
+                buffer.put(field.getBoolean(object) ? (byte) 1 : (byte) 0);
+                break;
+            case BYTE:
+                buffer.put(field.getByte(object));
+                break;
+            case SHORT:
+                putVarint(buffer, zigZag(field.getShort(object)));
+                break;
+            case CHAR:
+                putVarint(buffer, field.getChar(object));
+                break;
+            case INT:
+                putVarint(buffer, zigZag(field.getInt(object)));
+                break;
+            case LONG:
+                putVarint(buffer, zigZag(field.getLong(object)));
+                break;
+            case FLOAT:
+                buffer.putFloat(field.getFloat(object));
+                break;
+            default:
+                buffer.putDouble(field.getDouble(object));
+        }
+    }
+
+    /**
+     * Writes the value preceded by its kind. The reference to the encoded
+     * object itself is written as its identity, as it is output
+     * by the text styles.
+     */
+    private static void putValue(ByteBuffer buffer, Object value, Object root) {
+        if (value == null) {
+            buffer.put(NULL);
+        } else if (value == Unavailable.INSTANCE) {
+            buffer.put(NOT_AVAILABLE);
+        } else if (value instanceof Boolean) {
+            buffer.put(BOOLEAN);
+            buffer.put((Boolean) value ? (byte) 1 : (byte) 0);
+        } else if (value instanceof Integer) {
+            buffer.put(INT);
+            putVarint(buffer, zigZag((Integer) value));
+        } else if (value instanceof Long) {
+            buffer.put(LONG);
+            putVarint(buffer, zigZag((Long) value));
+        } else if (value instanceof Double) {
+            buffer.put(DOUBLE);
+            buffer.putDouble((Double) value);
+        } else if (value instanceof Float) {
+            buffer.put(FLOAT);
+            buffer.putFloat((Float) value);
+        } else if (value instanceof Short) {
+            buffer.put(SHORT);
+            putVarint(buffer, zigZag((Short) value));
+        } else if (value instanceof Byte) {
+            buffer.put(BYTE);
+            buffer.put((Byte) value);
+        } else if (value instanceof Character) {
+            buffer.put(CHAR);
+            putVarint(buffer, (Character) value);
+        } else if (value.getClass().isArray()) {
+            buffer.put(ARRAY);
+            putArray(buffer, value, root);
+        } else {
+            buffer.put(STRING);
+            putString(buffer, value == root
+                    ? ObjectUtils.identityToString(value)
+                    : value.toString());
+        }
+    }
+
+    /**
+     * Writes the kind of the components, the length and the elements.
+     * The elements of a primitive array are written without a tag.
+     */
+    private static void putArray(ByteBuffer buffer, Object array, Object root) {
+        Class<?> componentType = array.getClass().getComponentType();
+        byte kind = kindOf(componentType);
+        int length = Array.getLength(array);
+
+        buffer.put(kind);
+        putVarint(buffer, length);
+
+        if (kind == TAGGED) {
+            for (Object element : (Object[]) array) {
+                if (element == array) {
+                    buffer.put(STRING);
+                    putString(buffer, ObjectUtils.identityToString(array));
+                } else {
+                    putValue(buffer, element, root);
+                }
+            }
+            return;
+        }
+
+        for (int i = 0; i < length; i++) {
+            switch (kind) {
+                case BOOLEAN:
+                    buffer.put(((boolean[]) array)[i] ? (byte) 1 : (byte) 0);
+                    break;
+                case BYTE:
+                    buffer.put(((byte[]) array)[i]);
+                    break;
+                case SHORT:
+                    putVarint(buffer, zigZag(((short[]) array)[i]));
+                    break;
+                case CHAR:
+                    putVarint(buffer, ((char[]) array)[i]);
+                    break;
+                case INT:
+                    putVarint(buffer, zigZag(((int[]) array)[i]));
+                    break;
+                case LONG:
+                    putVarint(buffer, zigZag(((long[]) array)[i]));
+                    break;
+                case FLOAT:
+                    buffer.putFloat(((float[]) array)[i]);
+                    break;
+                default:
+                    buffer.putDouble(((double[]) array)[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads the value of a field and appends it to the builder.
+     */
+    private static void appendField(
+            ToStringBuilder builder,
+            String name,
+            byte kind,
+            ByteBuffer buffer) {
+
+        switch (kind) {
+            case BOOLEAN:
+                builder.append(name, buffer.get() != 0);
+                break;
+            case BYTE:
+                builder.append(name, buffer.get());
+                break;
+            case SHORT:
+                builder.append(name, (short) unZigZag(getVarlong(buffer)));
+                break;
+            case CHAR:
+                builder.append(name, (char) getVarint(buffer));
+                break;
+            case INT:
+                builder.append(name, (int) unZigZag(getVarlong(buffer)));
+                break;
+            case LONG:
+                builder.append(name, unZigZag(getVarlong(buffer)));
+                break;
+            case FLOAT:
+                builder.append(name, buffer.getFloat());
+                break;
+            case DOUBLE:
+                builder.append(name, buffer.getDouble());
+                break;
+            default:
+                Object value = getValue(buffer);
+                if (value == Unavailable.INSTANCE) {
+                    builder.append((String) null, "<N/A>");
+                } else {
+                    builder.append(name, value);
+                }
+        }
+    }
+
+    /**
+     * Reads the value preceded by its kind.
+     */
+    private static Object getValue(ByteBuffer buffer) {
+        byte kind = buffer.get();
+        switch (kind) {
+            case NULL:
+                return null;
+            case NOT_AVAILABLE:
+                return Unavailable.INSTANCE;
+            case BOOLEAN:
+                return buffer.get() != 0;
+            case BYTE:
+                return buffer.get();
+            case SHORT:
+                return (short) unZigZag(getVarlong(buffer));
+            case CHAR:
+                return (char) getVarint(buffer);
+            case INT:
+                return (int) unZigZag(getVarlong(buffer));
+            case LONG:
+                return unZigZag(getVarlong(buffer));
+            case FLOAT:
+                return buffer.getFloat();
+            case DOUBLE:
+                return buffer.getDouble();
+            case STRING:
+                return getString(buffer);
+            case ARRAY:
+                return getArray(buffer);
+            default:
+                throw new IllegalArgumentException("Unknown kind: " + kind);
+        }
+    }
+
+    /**
+     * Reads the array written by {@link #putArray}.
+     */
+    private static Object getArray(ByteBuffer buffer) {
+        byte kind = buffer.get();
+        int length = getVarint(buffer);
+
+        switch (kind) {
+            case BOOLEAN:
+                boolean[] booleans = new boolean[length];
+                for (int i = 0; i < length; i++) {
+                    booleans[i] = buffer.get() != 0;
+                }
+                return booleans;
+            case BYTE:
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                return bytes;
+            case SHORT:
+                short[] shorts = new short[length];
+                for (int i = 0; i < length; i++) {
+                    shorts[i] = (short) unZigZag(getVarlong(buffer));
+                }
+                return shorts;
+            case CHAR:
+                char[] chars = new char[length];
+                for (int i = 0; i < length; i++) {
+                    chars[i] = (char) getVarint(buffer);
+                }
+                return chars;
+            case INT:
+                int[] ints = new int[length];
+                for (int i = 0; i < length; i++) {
+                    ints[i] = (int) unZigZag(getVarlong(buffer));
+                }
+                return ints;
+            case LONG:
+                long[] longs = new long[length];
+                for (int i = 0; i < length; i++) {
+                    longs[i] = unZigZag(getVarlong(buffer));
+                }
+                return longs;
+            case FLOAT:
+                float[] floats = new float[length];
+                for (int i = 0; i < length; i++) {
+                    floats[i] = buffer.getFloat();
+                }
+                return floats;
+            case DOUBLE:
+                double[] doubles = new double[length];
+                for (int i = 0; i < length; i++) {
+                    doubles[i] = buffer.getDouble();
+                }
+                return doubles;
+            default:
+                Object[] objects = new Object[length];
+                for (int i = 0; i < length; i++) {
+                    objects[i] = getValue(buffer);
+                }
+                return objects;
+        }
+    }
+
+    private static byte kindOf(Class<?> type) {
+        if (type == boolean.class) {
+            return BOOLEAN;
+        } else if (type == byte.class) {
+            return BYTE;
+        } else if (type == short.class) {
+            return SHORT;
+        } else if (type == char.class) {
+            return CHAR;
+        } else if (type == int.class) {
+            return INT;
+        } else if (type == long.class) {
+            return LONG;
+        } else if (type == float.class) {
+            return FLOAT;
+        } else if (type == double.class) {
+            return DOUBLE;
+        }
+        return TAGGED;
+    }
+
+    private static void putString(ByteBuffer buffer, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        putVarint(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[getVarint(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the unsigned value in groups of 7 bits,
+     * the least significant group first.
+     */
+    private static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarlong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable-length value");
+    }
+
+    private static int getVarint(ByteBuffer buffer) {
+        return (int) getVarlong(buffer);
+    }
+
+    /**
+     * Maps the signed value onto the unsigned one,
+     * so the small negative values are written short as well.
+     */
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Schema of a class.
+     */
+    private static final class Schema {
+
+        private final int id;
+
+        /**
+         * Index of the class name in the string table
+         */
+        private final int className;
+
+        /**
+         * Whether the class is an array, encoded as a single value
+         */
+        private final boolean array;
+
+        /**
+         * The encoded fields, <code>null</code> in the schemas read back
+         */
+        private final FieldMetadata.FieldProperty[] properties;
+
+        /**
+         * Indices of the field names in the string table
+         */
+        private final int[] names;
+
+        private final byte[] kinds;
+
+        private Schema(
+                int id,
+                int className,
+                boolean array,
+                FieldMetadata.FieldProperty[] properties,
+                int[] names,
+                byte[] kinds) {
+
+            this.id = id;
+            this.className = className;
+            this.array = array;
+            this.properties = properties;
+            this.names = names;
+            this.kinds = kinds;
+        }
+    }
+
+    /**
+     * Marker of a value, which could not be read.
+     */
+    private enum Unavailable {
+        INSTANCE
+    }
+
+    /**
+     * Decoded record, providing the class name and the identity hash code.
+     */
+    private static final class Record {
+
+        private final String className;
+        private final int identityHashCode;
+
+        private Record(String className, int identityHashCode) {
+            this.className = className;
+            this.identityHashCode = identityHashCode;
+        }
+    }
+
+    /**
+     * {@link ToStringStyle#DEFAULT_STYLE}, which outputs the class name
+     * and the identity hash code of the decoded record.
+     */
+    private static final class RecordStyle extends ToStringStyle {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void appendClassName(StringBuffer buffer, Object object) {
+            if (object instanceof Record) {
+                buffer.append(((Record) object).className);
+            } else {
+                super.appendClassName(buffer, object);
+            }
+        }
+
+        @Override
+        protected void appendIdentityHashCode(
+                StringBuffer buffer, Object object) {
+
+            if (object instanceof Record) {
+                buffer.append('@').append(Integer.toHexString(
+                        ((Record) object).identityHashCode));
+            } else {
+                super.appendIdentityHashCode(buffer, object);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * <p>Streams the content of a builder's buffer to an
+ * <code>Appendable</code> while the builder is still appending.</p>
+ *
+ * <p>The buffer is drained only at safe points, i.e. where more content
+ * is about to follow. The style may still remove the trailing field
+ * separator from the end of the buffer.</p>
+ *
+ * <p>Only the buffer of the outermost builder is drained. The nested
+ * objects rendered by their own builders are appended to it as
+ * a whole.</p>
+ */
+final class BufferDrain {
+
+    /**
+     * Number of buffered characters, which triggers draining
+     */
+    static final int THRESHOLD = 8192;
+
+    /**
+     * Drain of the buffer being streamed in the current thread
+     */
+    private static final ThreadLocal<BufferDrain> current = new ThreadLocal<>();
+
+    private final StringBuffer buffer;
+    private final Appendable target;
+
+    /**
+     * Number of characters written to the target
+     */
+    private long drained;
+
+    private BufferDrain(StringBuffer buffer, Appendable target) {
+        this.buffer = buffer;
+        this.target = target;
+    }
+
+    /**
+     * Provides the drain of the given buffer,
+     * if it is being streamed in the current thread.
+     *
+     * @param buffer the buffer
+     * @return the drain, or <code>null</code>
+     */
+    static BufferDrain of(StringBuffer buffer) {
+        BufferDrain drain = current.get();
+        return drain != null && drain.buffer == buffer ? drain : null;
+    }
+
+    /**
+     * Builds the string of the given builder, streaming it to the target.
+     * The buffer of the builder is drained, whenever the builder or the
+     * style reaches a safe point.
+     *
+     * @param <A>     the type of the target
+     * @param target  the appendable to write into
+     * @param builder the builder
+     * @return the target
+     * @throws IOException if writing into the target fails
+     */
+    static <A extends Appendable> A stream(A target, ToStringBuilder builder)
+            throws IOException {
+
+        BufferDrain previous = current.get();
+        current.set(new BufferDrain(builder.getStringBuffer(), target));
+        try {
+            target.append(builder.toString());
+            return target;
+        } catch (Failure e) {
+            throw e.getCause();
+        } finally {
+            current.set(previous);
+        }
+    }
+
+    /**
+     * Writes the buffered content to the target, if there is enough of it.
+     *
+     * @throws Failure if writing into the target fails
+     */
+    void drain() {
+        if (buffer.length() >= THRESHOLD) {
+            try {
+                target.append(buffer);
+            } catch (IOException e) {
+                throw new Failure(e);
+            }
+            drained += buffer.length();
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Returns the number of characters already written to the target.
+     *
+     * @return the number of drained characters
+     */
+    long drained() {
+        return drained;
+    }
+
+    /**
+     * Failure of writing into the target. The builders propagate it,
+     * instead of reporting it as an unavailable value.
+     */
+    static final class Failure extends UncheckedIOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private Failure(IOException cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.function.Function;
+
+/**
+ * <p>Reuses the <code>StringBuffer</code> of the static
+ * <code>toString</code> methods of the builders within a thread.</p>
+ *
+ * <p>Each thread keeps one buffer, which is reset and presized from the
+ * {@link SizeHints} of the class. If the buffer is already in use, e.g. by
+ * a <code>toString</code> invoked while appending another one, a new
+ * buffer is created instead.</p>
+ */
+final class BufferPool {
+
+    /**
+     * Capacity above which the buffer is not kept for reuse
+     */
+    static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    /**
+     * Buffer of the current thread
+     */
+    private static final ThreadLocal<BufferPool> current =
+            ThreadLocal.withInitial(BufferPool::new);
+
+    private StringBuffer buffer;
+    private boolean inUse;
+
+    private BufferPool() {
+    }
+
+    /**
+     * Builds the string of the builder created by the given factory,
+     * passing it a reused buffer.
+     *
+     * @param hints   the size hints of the output
+     * @param type    the class of the object to be output
+     * @param factory creates the builder populating the given buffer
+     * @return the String result
+     */
+    static String render(
+            SizeHints hints,
+            Class<?> type,
+            Function<StringBuffer, ? extends ToStringBuilder> factory) {
+
+        BufferPool pool = current.get();
+
+        if (pool.inUse) {
+            return render(hints, type, factory, hints.newBuffer(type));
+        }
+
+        StringBuffer buffer = pool.buffer;
+        if (buffer == null) {
+            buffer = hints.newBuffer(type);
+        } else {
+            buffer.setLength(0);
+            buffer.ensureCapacity(hints.capacity(type));
+        }
+
+        pool.buffer = null;
+        pool.inUse = true;
+        try {
+            return render(hints, type, factory, buffer);
+        } finally {
+            pool.inUse = false;
+            if (buffer.capacity() <= MAX_RETAINED_CAPACITY) {
+                pool.buffer = buffer;
+            }
+        }
+    }
+
+    private static String render(
+            SizeHints hints,
+            Class<?> type,
+            Function<StringBuffer, ? extends ToStringBuilder> factory,
+            StringBuffer buffer) {
+
+        String result = factory.apply(buffer).toString();
+        hints.record(type, result.length());
+        return result;
+    }
+}
@@ -0,0 +1,124 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.ClassUtils;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Decides which classes are accepted in recursion.</p>
+ *
+ * <p>A class is accepted, if it is neither an enum, a primitive wrapper
+ * nor a string, and it declares any of the annotations, is one of
+ * the classes, or is part of a package starting with any of the package
+ * prefixes. The classes are kept in a hash set and the package prefixes
+ * in a prefix tree. The decision is memoized per class.</p>
+ */
+final class ClassAcceptance {
+
+    private final Class<? extends Annotation>[] annotations;
+    private final Set<Class<?>> classes;
+    private final PrefixNode packages;
+
+    /**
+     * Memoized decisions by class
+     */
+    private final ClassValue<Boolean> decisions = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return decide(type);
+        }
+    };
+
+    /**
+     * Constructor.
+     *
+     * @param annotations annotations of the accepted classes
+     * @param classes the accepted classes
+     * @param packages prefixes of the accepted packages
+     */
+    ClassAcceptance(
+            Class<? extends Annotation>[] annotations,
+            Class<?>[] classes,
+            String[] packages) {
+
+        this.annotations = annotations.clone();
+        this.classes = Arrays.stream(classes)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet());
+        this.packages = new PrefixNode();
+        for (String prefix : packages) {
+            this.packages.add(prefix);
+        }
+    }
+
+    /**
+     * Returns whether or not the given class is accepted.
+     *
+     * @param clazz the class to test
+     * @return true if the class is accepted
+     */
+    boolean accept(Class<?> clazz) {
+        return decisions.get(clazz);
+    }
+
+    private boolean decide(Class<?> clazz) {
+        if (clazz.isEnum()
+                || ClassUtils.isPrimitiveWrapper(clazz)
+                || String.class.equals(clazz)) {
+            return false;
+        }
+
+        if (classes.contains(clazz)
+                || packages.matchesPrefixOf(clazz.getPackageName())) {
+            return true;
+        }
+
+        for (Class<? extends Annotation> annotation : annotations) {
+            if (clazz.isAnnotationPresent(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Node of the package prefix tree.
+     */
+    private static final class PrefixNode {
+
+        private final Map<Character, PrefixNode> children = new HashMap<>();
+        private boolean terminal;
+
+        private void add(String prefix) {
+            PrefixNode node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(
+                        prefix.charAt(i), c -> new PrefixNode());
+            }
+            node.terminal = true;
+        }
+
+        /**
+         * Returns whether any added prefix is a prefix of the given value.
+         */
+        private boolean matchesPrefixOf(String value) {
+            PrefixNode node = this;
+            for (int i = 0; !node.terminal; i++) {
+                if (i == value.length()) {
+                    return false;
+                }
+                node = node.children.get(value.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.srnjak.utils.tostring.builder;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * <p>Metrics of the outputs of the objects of a single class,
+ * recorded by {@link RenderMetrics}.</p>
+ */
+public final class ClassRenderStats {
+
+    private final String className;
+    private final long renderCount;
+    private final long totalTimeNanos;
+    private final long totalLength;
+    private final long failureCount;
+    private final int maxDepth;
+    private final long cacheHits;
+    private final long cacheMisses;
+
+    /**
+     * Constructor.
+     *
+     * @param className      the name of the class
+     * @param renderCount    the number of outputs
+     * @param totalTimeNanos the time spent by the outputs
+     * @param totalLength    the length of all outputs
+     * @param failureCount   the number of values reported as not available
+     * @param maxDepth       the deepest nesting of the rendered objects
+     * @param cacheHits      the number of lookups found in the cache
+     * @param cacheMisses    the number of lookups resolved anew
+     */
+    @ConstructorProperties({
+            "className",
+            "renderCount",
+            "totalTimeNanos",
+            "totalLength",
+            "failureCount",
+            "maxDepth",
+            "cacheHits",
+            "cacheMisses"})
+    public ClassRenderStats(
+            String className,
+            long renderCount,
+            long totalTimeNanos,
+            long totalLength,
+            long failureCount,
+            int maxDepth,
+            long cacheHits,
+            long cacheMisses) {
+
+        this.className = className;
+        this.renderCount = renderCount;
+        this.totalTimeNanos = totalTimeNanos;
+        this.totalLength = totalLength;
+        this.failureCount = failureCount;
+        this.maxDepth = maxDepth;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+    }
+
+    /**
+     * @return the name of the class
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return the number of outputs of the objects of the class
+     */
+    public long getRenderCount() {
+        return renderCount;
+    }
+
+    /**
+     * @return the time spent by the outputs in nanoseconds,
+     *         the nested objects included
+     */
+    public long getTotalTimeNanos() {
+        return totalTimeNanos;
+    }
+
+    /**
+     * @return the number of characters of all outputs
+     */
+    public long getTotalLength() {
+        return totalLength;
+    }
+
+    /**
+     * @return the number of values reported as <code>&lt;N/A&gt;</code>,
+     *         as reading them failed
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return the deepest nesting of the objects rendered within
+     *         an output, 0 if no nested object was rendered
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return the number of lookups of the fields or properties declared
+     *         by the class, which were found in the cache
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * @return the number of lookups of the fields or properties declared
+     *         by the class, which were resolved anew
+     */
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    @Override
+    public String toString() {
+        return className
+                + "[renderCount=" + renderCount
+                + ",totalTimeNanos=" + totalTimeNanos
+                + ",totalLength=" + totalLength
+                + ",failureCount=" + failureCount
+                + ",maxDepth=" + maxDepth
+                + ",cacheHits=" + cacheHits
+                + ",cacheMisses=" + cacheMisses
+                + "]";
+    }
+}
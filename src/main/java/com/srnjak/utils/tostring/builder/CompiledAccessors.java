@@ -0,0 +1,37 @@
+package com.srnjak.utils.tostring.builder;
+
+import java.util.function.Function;
+
+/**
+ * <p>Accessors of the fields and getters declared by a class annotated
+ * with {@link CompiledToString}.</p>
+ *
+ * <p>The implementation is generated at compile time into the package of
+ * the annotated class, named after its binary name followed by
+ * {@link #SUFFIX}, e.g. <code>Person$ToStringAccessors</code>.</p>
+ */
+public interface CompiledAccessors {
+
+    /**
+     * Suffix of the name of the generated implementation
+     */
+    String SUFFIX = "$ToStringAccessors";
+
+    /**
+     * Provides the accessor of the given field.
+     *
+     * @param name the name of the field
+     * @return the function reading the field of the given object,
+     *         or <code>null</code> if there is no generated accessor
+     */
+    Function<Object, Object> field(String name);
+
+    /**
+     * Provides the accessor of the given property.
+     *
+     * @param name the name of the property
+     * @return the function calling the getter of the given object,
+     *         or <code>null</code> if there is no generated accessor
+     */
+    Function<Object, Object> getter(String name);
+}
@@ -0,0 +1,26 @@
+package com.srnjak.utils.tostring.builder;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Use this annotation to generate the accessors of the fields and getters
+ * of a class at compile time, so that {@link ToStringByFieldsBuilder} and
+ * {@link ToStringByGettersBuilder} read the values through the generated
+ * code instead of reflection.
+ *
+ * The accessors are generated by
+ * {@link com.srnjak.utils.tostring.builder.processor.CompiledToStringProcessor},
+ * which is discovered by the compiler when this library is on the classpath.
+ * Private fields cannot be read by the generated code, so they are still
+ * read through reflection.
+ *
+ * @see CompiledAccessors
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CompiledToString {
+
+}
@@ -0,0 +1,255 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.ClassUtils;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>Per-class cache of the fields appended
+ * by {@link ToStringByFieldsBuilder}.</p>
+ *
+ * <p>The fields declared by a class are read and made accessible only once.
+ * Fields excluded by annotation and inner class references are kept apart
+ * right away, for the builders overriding the selection of the fields
+ * only. The selection depending on the builder options (transients
+ * and statics) is memoized per class as well. Of the selections with
+ * excluded names only the last one is kept, so that varying names
+ * don't pile up. The entries are held by {@link ClassValue}, so they don't prevent
+ * the classes from being unloaded.</p>
+ */
+final class FieldMetadata {
+
+    /**
+     * Cached field plans by class
+     */
+    private static volatile ClassValue<FieldPlan> cache = newCache();
+
+    private FieldMetadata() {
+    }
+
+    /**
+     * Provides the field plan of the given class.
+     *
+     * @param clazz the class declaring the fields
+     * @return the field plan
+     */
+    static FieldPlan of(Class<?> clazz) {
+        RenderMetrics.lookedUp(clazz);
+        return cache.get(clazz);
+    }
+
+    /**
+     * Discards all cached field plans.
+     */
+    static void clear() {
+        cache = newCache();
+    }
+
+    private static ClassValue<FieldPlan> newCache() {
+        return new ClassValue<>() {
+            @Override
+            protected FieldPlan computeValue(Class<?> type) {
+                RenderMetrics.missed(type);
+                return new FieldPlan(type);
+            }
+        };
+    }
+
+    /**
+     * Fields declared by a single class.
+     */
+    static final class FieldPlan {
+
+        private static final FieldProperty[] EMPTY = new FieldProperty[0];
+
+        /**
+         * Selections without excluded names, indexed by the flags
+         */
+        private final AtomicReferenceArray<FieldProperty[]> selections =
+                new AtomicReferenceArray<>(4);
+
+        /**
+         * The last selection with excluded names, may be <code>null</code>
+         */
+        private volatile ExcludingSelection lastExcluding;
+
+        private final FieldProperty[] fields;
+
+        /**
+         * All declared fields, including the ones dropped from
+         * {@link #fields}
+         */
+        private final FieldProperty[] all;
+
+        private FieldPlan(Class<?> clazz) {
+            Field[] declaredFields = clazz.getDeclaredFields();
+            AccessibleObject.setAccessible(declaredFields, true);
+
+            List<FieldProperty> properties = new ArrayList<>();
+            List<FieldProperty> all = new ArrayList<>();
+            for (Field field : declaredFields) {
+                FieldProperty property = new FieldProperty(field);
+                if (field.getName().indexOf(
+                        ClassUtils.INNER_CLASS_SEPARATOR_CHAR) == -1
+                        && !field.isAnnotationPresent(ToStringExclude.class)
+                        && !field.isAnnotationPresent(
+                                org.apache.commons.lang3.builder
+                                        .ToStringExclude.class)) {
+                    properties.add(property);
+                }
+                all.add(property);
+            }
+            this.fields = properties.toArray(EMPTY);
+            this.all = all.toArray(EMPTY);
+        }
+
+        /**
+         * Provides all the declared fields, to be selected by the builder.
+         *
+         * @return all the declared fields
+         */
+        FieldProperty[] all() {
+            return all;
+        }
+
+        /**
+         * Selects the fields to be appended.
+         *
+         * @param outputTransients whether to include transient fields
+         * @param outputStatics    whether to include static fields
+         * @param excludeFieldNames sorted names of the fields to exclude,
+         *                          may be <code>null</code>
+         * @return the fields to append
+         */
+        FieldProperty[] select(
+                boolean outputTransients,
+                boolean outputStatics,
+                String[] excludeFieldNames) {
+
+            int flags = (outputTransients ? 1 : 0) | (outputStatics ? 2 : 0);
+
+            if (excludeFieldNames == null || excludeFieldNames.length == 0) {
+                FieldProperty[] selection = selections.get(flags);
+                if (selection == null) {
+                    selection = filter(flags, null);
+                    selections.set(flags, selection);
+                }
+                return selection;
+            }
+
+            ExcludingSelection last = lastExcluding;
+            if (last == null || !last.matches(flags, excludeFieldNames)) {
+                last = new ExcludingSelection(
+                        flags,
+                        excludeFieldNames.clone(),
+                        filter(flags, excludeFieldNames));
+                lastExcluding = last;
+            }
+            return last.selection;
+        }
+
+        private FieldProperty[] filter(int flags, String[] excludeFieldNames) {
+            List<FieldProperty> selection = new ArrayList<>(fields.length);
+            for (FieldProperty field : fields) {
+                if (field.isTransient() && (flags & 1) == 0) {
+                    continue;
+                }
+                if (field.isStatic() && (flags & 2) == 0) {
+                    continue;
+                }
+                if (excludeFieldNames != null && Arrays.binarySearch(
+                        excludeFieldNames, field.getName()) >= 0) {
+                    continue;
+                }
+                selection.add(field);
+            }
+            return selection.toArray(EMPTY);
+        }
+    }
+
+    /**
+     * Field resolved for appending.
+     */
+    static final class FieldProperty {
+
+        private final String name;
+        private final Field field;
+        private final ValueAccessor accessor;
+        private final boolean transientField;
+        private final boolean staticField;
+
+        private FieldProperty(Field field) {
+            this.name = field.getName();
+            this.field = field;
+            this.accessor = ValueAccessors.forField(field);
+            this.transientField = Modifier.isTransient(field.getModifiers());
+            this.staticField = Modifier.isStatic(field.getModifiers());
+        }
+
+        /**
+         * @return the name of the field
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return the accessible field
+         */
+        Field getField() {
+            return field;
+        }
+
+        /**
+         * @return the accessor reading the field value
+         */
+        ValueAccessor getAccessor() {
+            return accessor;
+        }
+
+        /**
+         * @return whether the field is transient
+         */
+        boolean isTransient() {
+            return transientField;
+        }
+
+        /**
+         * @return whether the field is static
+         */
+        boolean isStatic() {
+            return staticField;
+        }
+    }
+
+    /**
+     * Selection with excluded names.
+     */
+    private static final class ExcludingSelection {
+
+        private final int flags;
+        private final String[] excludeFieldNames;
+        private final FieldProperty[] selection;
+
+        private ExcludingSelection(
+                int flags,
+                String[] excludeFieldNames,
+                FieldProperty[] selection) {
+
+            this.flags = flags;
+            this.excludeFieldNames = excludeFieldNames;
+            this.selection = selection;
+        }
+
+        private boolean matches(int flags, String[] excludeFieldNames) {
+            return this.flags == flags
+                    && Arrays.equals(this.excludeFieldNames, excludeFieldNames);
+        }
+    }
+}
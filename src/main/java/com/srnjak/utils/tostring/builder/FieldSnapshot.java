@@ -0,0 +1,341 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * <p>Shallow copy of the values appended by {@link ToStringByFieldsBuilder},
+ * captured at once to be formatted later, possibly in another thread.</p>
+ *
+ * <p>The values of primitive fields are copied into a <code>long</code>
+ * array without boxing, the referenced objects are held as they are.
+ * The captured array, as well as the arrays referenced by the fields,
+ * are copied one level deep, i.e. their elements are not copied.
+ * The fields are selected as by
+ * {@link ToStringByFieldsBuilder#toString(Object)}, i.e. without
+ * transient and static fields, up to <code>java.lang.Object</code>.</p>
+ */
+final class FieldSnapshot {
+
+    /**
+     * Logger
+     */
+    private static final Logger log =
+            Logger.getLogger(FieldSnapshot.class.getName());
+
+    /**
+     * Captured in place of a value, which could not be read
+     */
+    private static final Object NOT_AVAILABLE = new Object();
+
+    /**
+     * Cached snapshot plans by class
+     */
+    private static volatile ClassValue<SnapshotPlan> cache = newCache();
+
+    private final Object object;
+    private final Object array;
+    private final SnapshotPlan plan;
+    private final long[] primitives;
+    private final Object[] references;
+
+    private FieldSnapshot(
+            Object object,
+            Object array,
+            SnapshotPlan plan,
+            long[] primitives,
+            Object[] references) {
+
+        this.object = object;
+        this.array = array;
+        this.plan = plan;
+        this.primitives = primitives;
+        this.references = references;
+    }
+
+    /**
+     * Captures the values of the given object.
+     *
+     * @param object the object to be output later
+     * @return the snapshot
+     * @throws IllegalArgumentException if the object is <code>null</code>
+     */
+    static FieldSnapshot capture(Object object) {
+        if (object == null) {
+            throw new IllegalArgumentException(
+                    "The Object passed in should not be null.");
+        }
+
+        Class<?> clazz = object.getClass();
+        if (clazz.isArray()) {
+            return new FieldSnapshot(
+                    object, copyArray(object), SnapshotPlan.EMPTY, null, null);
+        }
+
+        SnapshotPlan plan = cache.get(clazz);
+        long[] primitives = new long[plan.primitiveCount];
+        Object[] references = new Object[plan.referenceCount];
+
+        for (int i = 0; i < plan.properties.length; i++) {
+            FieldMetadata.FieldProperty property = plan.properties[i];
+            int slot = plan.slots[i];
+            try {
+                if (property.getField().getType().isPrimitive()) {
+                    primitives[slot] = read(property.getField(), object);
+                } else {
+                    references[slot] = read(property, object);
+                }
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        return new FieldSnapshot(object, null, plan, primitives, references);
+    }
+
+    /**
+     * Discards all cached snapshot plans.
+     */
+    static void clear() {
+        cache = newCache();
+    }
+
+    /**
+     * @return the captured object, which provides the class name
+     *         and the identity hash code
+     */
+    Object getObject() {
+        return object;
+    }
+
+    /**
+     * @return the copy of the captured array,
+     *         or <code>null</code> if the object is not an array
+     */
+    Object getArray() {
+        return array;
+    }
+
+    /**
+     * Returns the index of the first captured value of the fields
+     * declared by the given class.
+     *
+     * @param clazz the class declaring the fields
+     * @return the index
+     */
+    int start(Class<?> clazz) {
+        return plan.start(clazz);
+    }
+
+    /**
+     * Returns the index after the last captured value of the fields
+     * declared by the given class.
+     *
+     * @param clazz the class declaring the fields
+     * @return the index
+     */
+    int end(Class<?> clazz) {
+        return plan.end(clazz);
+    }
+
+    /**
+     * Appends the captured value at the given index to the builder.
+     *
+     * @param builder the builder to append to
+     * @param index   the index of the value
+     */
+    void appendTo(ToStringBuilder builder, int index) {
+        FieldMetadata.FieldProperty property = plan.properties[index];
+        String name = property.getName();
+        Class<?> type = property.getField().getType();
+        int slot = plan.slots[index];
+
+        if (!type.isPrimitive()) {
+            Object value = references[slot];
+            if (value == NOT_AVAILABLE) {
+                builder.append(
+                        JsonStyle.unavailableFieldName(
+                                builder.getStyle(), name),
+                        "<N/A>");
+            } else {
+                builder.append(name, value);
+            }
+            return;
+        }
+
+        long value = primitives[slot];
+        if (type == int.class) {
+            builder.append(name, (int) value);
+        } else if (type == long.class) {
+            builder.append(name, value);
+        } else if (type == boolean.class) {
+            builder.append(name, value != 0);
+        } else if (type == double.class) {
+            builder.append(name, Double.longBitsToDouble(value));
+        } else if (type == float.class) {
+            builder.append(name, Float.intBitsToFloat((int) value));
+        } else if (type == char.class) {
+            builder.append(name, (char) value);
+        } else if (type == byte.class) {
+            builder.append(name, (byte) value);
+        } else {
+            builder.append(name, (short) value);
+        }
+    }
+
+    /**
+     * Reads the value of a primitive field, without boxing.
+     */
+    private static long read(Field field, Object object)
+            throws IllegalAccessException {
+
+        Class<?> type = field.getType();
+        if (type == int.class) {
+            return field.getInt(object);
+        } else if (type == long.class) {
+            return field.getLong(object);
+        } else if (type == boolean.class) {
+            return field.getBoolean(object) ? 1 : 0;
+        } else if (type == double.class) {
+            return Double.doubleToRawLongBits(field.getDouble(object));
+        } else if (type == float.class) {
+            return Float.floatToRawIntBits(field.getFloat(object));
+        } else if (type == char.class) {
+            return field.getChar(object);
+        } else if (type == byte.class) {
+            return field.getByte(object);
+        } else {
+            return field.getShort(object);
+        }
+    }
+
+    /**
+     * Reads the value of a reference field through its accessor.
+     * An array is copied, so its later changes are not output.
+     * The failure is captured as an unavailable value.
+     */
+    private static Object read(
+            FieldMetadata.FieldProperty property, Object object)
+            throws IllegalAccessException {
+
+        try {
+            Object value = property.getAccessor().get(object);
+            return value != null && value.getClass().isArray()
+                    ? copyArray(value)
+                    : value;
+        } catch (RuntimeException e) {
+            log.finer(e::toString);
+            log.finest(() -> ExceptionUtils.getStackTrace(e));
+            RenderMetrics.failed(object);
+
+            return NOT_AVAILABLE;
+        }
+    }
+
+    private static Object copyArray(Object array) {
+        int length = Array.getLength(array);
+        Object copy = Array.newInstance(
+                array.getClass().getComponentType(), length);
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+
+    private static ClassValue<SnapshotPlan> newCache() {
+        return new ClassValue<>() {
+            @Override
+            protected SnapshotPlan computeValue(Class<?> type) {
+                return new SnapshotPlan(type);
+            }
+        };
+    }
+
+    /**
+     * Fields of a class and its superclasses, with the positions
+     * of their values in a snapshot.
+     */
+    private static final class SnapshotPlan {
+
+        private static final SnapshotPlan EMPTY = new SnapshotPlan(null);
+
+        /**
+         * The class and its superclasses, in the order of appending
+         */
+        private final Class<?>[] classes;
+
+        /**
+         * Index of the first property of each class,
+         * followed by the number of all properties
+         */
+        private final int[] offsets;
+
+        private final FieldMetadata.FieldProperty[] properties;
+
+        /**
+         * Index of the value of each property in the primitives
+         * or in the references
+         */
+        private final int[] slots;
+
+        private final int primitiveCount;
+        private final int referenceCount;
+
+        private SnapshotPlan(Class<?> clazz) {
+            List<Class<?>> hierarchy = new ArrayList<>();
+            List<FieldMetadata.FieldProperty> selected = new ArrayList<>();
+            List<Integer> starts = new ArrayList<>();
+
+            for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+                hierarchy.add(c);
+                starts.add(selected.size());
+                for (FieldMetadata.FieldProperty property :
+                        FieldMetadata.of(c).select(false, false, null)) {
+                    selected.add(property);
+                }
+            }
+            starts.add(selected.size());
+
+            this.classes = hierarchy.toArray(new Class<?>[0]);
+            this.offsets = starts.stream().mapToInt(Integer::intValue)
+                    .toArray();
+            this.properties = selected.toArray(
+                    new FieldMetadata.FieldProperty[0]);
+            this.slots = new int[properties.length];
+
+            int primitive = 0;
+            int reference = 0;
+            for (int i = 0; i < properties.length; i++) {
+                if (properties[i].getField().getType().isPrimitive()) {
+                    slots[i] = primitive++;
+                } else {
+                    slots[i] = reference++;
+                }
+            }
+            this.primitiveCount = primitive;
+            this.referenceCount = reference;
+        }
+
+        private int start(Class<?> clazz) {
+            for (int i = 0; i < classes.length; i++) {
+                if (classes[i] == clazz) {
+                    return offsets[i];
+                }
+            }
+            return 0;
+        }
+
+        private int end(Class<?> clazz) {
+            for (int i = 0; i < classes.length; i++) {
+                if (classes[i] == clazz) {
+                    return offsets[i + 1];
+                }
+            }
+            return 0;
+        }
+    }
+}
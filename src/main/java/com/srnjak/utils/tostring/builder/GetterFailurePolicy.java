@@ -0,0 +1,136 @@
+package com.srnjak.utils.tostring.builder;
+
+/**
+ * <p>Policy for the getters, which failed to provide a value.</p>
+ *
+ * <p>A getter failing with <code>java.lang.RuntimeException</code> is
+ * reported as <code>&lt;N/A&gt;</code>. By default it is invoked again on
+ * each output, e.g. a getter of a lazy-loading entity keeps throwing.
+ * The other policies remember the failure per property, and stop invoking
+ * the getter afterwards. The failure is remembered for the class declaring
+ * the getter, so it applies to all its instances.</p>
+ *
+ * @see ToStringByGettersBuilder#useGetterFailurePolicy(GetterFailurePolicy)
+ * @see ToStringRenderer.Builder#getterFailurePolicy(GetterFailurePolicy)
+ */
+public final class GetterFailurePolicy {
+
+    /**
+     * Invokes the getter on each output, whether it failed before or not.
+     */
+    public static final GetterFailurePolicy INVOKE =
+            new GetterFailurePolicy(false, false, 0);
+
+    /**
+     * Reports <code>&lt;N/A&gt;</code> for the property which failed before,
+     * without invoking the getter again.
+     */
+    public static final GetterFailurePolicy MARK =
+            new GetterFailurePolicy(true, false, 0);
+
+    /**
+     * Omits the property which failed before,
+     * without invoking the getter again.
+     */
+    public static final GetterFailurePolicy SKIP =
+            new GetterFailurePolicy(true, true, 0);
+
+    /**
+     * Decision on a single property.
+     */
+    enum Decision {
+
+        /**
+         * Invoke the getter
+         */
+        INVOKE,
+
+        /**
+         * Report the value as not available
+         */
+        MARK,
+
+        /**
+         * Omit the property
+         */
+        OMIT
+    }
+
+    private final boolean remember;
+    private final boolean skip;
+    private final int retryAfter;
+
+    private GetterFailurePolicy(
+            boolean remember, boolean skip, int retryAfter) {
+
+        this.remember = remember;
+        this.skip = skip;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Provides the policy reporting <code>&lt;N/A&gt;</code> for the property
+     * which failed before, but invoking the getter again after the given
+     * number of outputs. If it still fails, the count starts over.
+     *
+     * @param outputs the number of outputs without invoking the getter
+     * @return the policy
+     * @throws IllegalArgumentException if the number is not positive
+     */
+    public static GetterFailurePolicy retryAfter(int outputs) {
+        if (outputs <= 0) {
+            throw new IllegalArgumentException(
+                    "The number of outputs must be positive: " + outputs);
+        }
+        return new GetterFailurePolicy(true, false, outputs);
+    }
+
+    /**
+     * Decides how to output the given property.
+     *
+     * @param property the property
+     * @return the decision
+     */
+    Decision decide(GetterMetadata.GetterProperty property) {
+        if (!remember || !property.isFailing()) {
+            return Decision.INVOKE;
+        }
+        if (retryAfter > 0 && property.suppress() > retryAfter) {
+            return Decision.INVOKE;
+        }
+        return skip ? Decision.OMIT : Decision.MARK;
+    }
+
+    /**
+     * Records the failure of the getter of the given property.
+     *
+     * @param property the property
+     */
+    void failed(GetterMetadata.GetterProperty property) {
+        if (remember) {
+            property.markFailing();
+        }
+    }
+
+    /**
+     * Records the success of the getter of the given property.
+     *
+     * @param property the property
+     */
+    void succeeded(GetterMetadata.GetterProperty property) {
+        if (remember) {
+            property.markSucceeding();
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (!remember) {
+            return "INVOKE";
+        }
+        if (skip) {
+            return "SKIP";
+        }
+        return retryAfter > 0 ? "RETRY_AFTER_" + retryAfter : "MARK";
+    }
+}
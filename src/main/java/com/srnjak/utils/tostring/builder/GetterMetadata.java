@@ -0,0 +1,216 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Per-class cache of the properties appended
+ * by {@link ToStringByGettersBuilder}.</p>
+ *
+ * <p>The properties declared by a class are introspected only once.
+ * The properties with a getter, which are not excluded by annotation,
+ * are kept apart from the others, which are only passed to the builders
+ * overriding the selection of the properties. The entries are held by
+ * {@link ClassValue}, so they don't prevent the classes from being
+ * unloaded.</p>
+ */
+final class GetterMetadata {
+
+    /**
+     * Cached properties by class
+     */
+    private static volatile ClassValue<Properties> cache = newCache();
+
+    private GetterMetadata() {
+    }
+
+    /**
+     * Provides the properties declared by the given class.
+     *
+     * @param clazz the class to introspect
+     * @return the accepted properties
+     */
+    static GetterProperty[] of(Class<?> clazz) {
+        RenderMetrics.lookedUp(clazz);
+        return cache.get(clazz).accepted;
+    }
+
+    /**
+     * Provides all the properties declared by the given class, including
+     * the ones without a getter and the ones excluded by annotation.
+     *
+     * @param clazz the class to introspect
+     * @return all the properties
+     */
+    static GetterProperty[] all(Class<?> clazz) {
+        RenderMetrics.lookedUp(clazz);
+        return cache.get(clazz).all;
+    }
+
+    /**
+     * Discards all cached properties.
+     */
+    static void clear() {
+        cache = newCache();
+    }
+
+    /**
+     * Returns whether or not the property is excluded by annotation,
+     * either on its getter or on its field.
+     *
+     * @param propertyDescriptor the property to test
+     * @return true if the property is excluded
+     */
+    static boolean isExcluded(PropertyDescriptor propertyDescriptor) {
+        String propertyName = propertyDescriptor.getName();
+        Method getter = propertyDescriptor.getReadMethod();
+        Class<?> declaringClass = getter.getDeclaringClass();
+
+        Field field = FieldUtils.getField(declaringClass, propertyName, true);
+
+        return getter.isAnnotationPresent(ToStringExclude.class)
+                || (field != null && field.isAnnotationPresent(
+                        org.apache.commons.lang3.builder
+                                .ToStringExclude.class));
+    }
+
+    private static ClassValue<Properties> newCache() {
+        return new ClassValue<>() {
+            @Override
+            protected Properties computeValue(Class<?> type) {
+                RenderMetrics.missed(type);
+                return introspect(type);
+            }
+        };
+    }
+
+    private static Properties introspect(Class<?> clazz) {
+        Class<?> superclass = null;
+        if (!clazz.equals(Object.class)) {
+            superclass = clazz.getSuperclass();
+        }
+
+        try {
+            List<GetterProperty> accepted = new ArrayList<>();
+            List<GetterProperty> all = new ArrayList<>();
+            for (PropertyDescriptor propertyDescriptor :
+                    Introspector.getBeanInfo(clazz, superclass)
+                            .getPropertyDescriptors()) {
+
+                GetterProperty property =
+                        new GetterProperty(propertyDescriptor);
+                if (propertyDescriptor.getReadMethod() != null
+                        && !isExcluded(propertyDescriptor)) {
+                    accepted.add(property);
+                }
+                all.add(property);
+            }
+            return new Properties(
+                    accepted.toArray(new GetterProperty[0]),
+                    all.toArray(new GetterProperty[0]));
+        } catch (IntrospectionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Properties declared by a class.
+     */
+    private static final class Properties {
+
+        private final GetterProperty[] accepted;
+        private final GetterProperty[] all;
+
+        private Properties(GetterProperty[] accepted, GetterProperty[] all) {
+            this.accepted = accepted;
+            this.all = all;
+        }
+    }
+
+    /**
+     * Property resolved from a getter.
+     */
+    static final class GetterProperty {
+
+        private final String name;
+        private final PropertyDescriptor descriptor;
+        private final ValueAccessor accessor;
+
+        /**
+         * Number of outputs since the getter failed,
+         * <code>-1</code> if it is not known to fail
+         */
+        private final AtomicInteger failing = new AtomicInteger(-1);
+
+        private GetterProperty(PropertyDescriptor descriptor) {
+            this.name = descriptor.getName();
+            this.descriptor = descriptor;
+            this.accessor = descriptor.getReadMethod() == null
+                    ? null
+                    : ValueAccessors.forGetter(
+                            name, descriptor.getReadMethod());
+        }
+
+        /**
+         * @return the name of the property
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return the descriptor of the property
+         */
+        PropertyDescriptor getDescriptor() {
+            return descriptor;
+        }
+
+        /**
+         * @return the accessor invoking the getter,
+         *         <code>null</code> if there is no getter
+         */
+        ValueAccessor getAccessor() {
+            return accessor;
+        }
+
+        /**
+         * @return whether the getter is known to fail
+         */
+        boolean isFailing() {
+            return failing.get() >= 0;
+        }
+
+        /**
+         * Counts an output without invoking the failing getter.
+         *
+         * @return the number of outputs since the getter failed
+         */
+        int suppress() {
+            return failing.incrementAndGet();
+        }
+
+        /**
+         * Records the failure of the getter.
+         */
+        void markFailing() {
+            failing.set(0);
+        }
+
+        /**
+         * Records the success of the getter.
+         */
+        void markSucceeding() {
+            if (failing.get() >= 0) {
+                failing.set(-1);
+            }
+        }
+    }
+}
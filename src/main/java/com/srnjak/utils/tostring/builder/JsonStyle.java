@@ -0,0 +1,574 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Recursive style producing JSON, e.g.
+ * <code>{"name":"John","age":33,"tags":["a","b"]}</code>.</p>
+ *
+ * <p>The objects are accepted in recursion by the same rules as in
+ * {@link RecursiveStyle}, and rendered as JSON objects. The objects, which
+ * are not accepted, are rendered as strings of their
+ * <code>toString</code> value. Collections and arrays are rendered as
+ * JSON arrays, maps as JSON objects keyed by the string value of the keys.
+ * Numbers and booleans are rendered as they are, except the numbers, which
+ * are not finite.</p>
+ *
+ * <p>The strings are escaped in a single pass, straight into the output
+ * buffer. The class name and the identity hash code are not output, and
+ * the references to the objects in a cycle are rendered as strings,
+ * e.g. <code>"Person@182f0db"</code>.</p>
+ *
+ * <p>The limits of {@link RecursiveStyle} keep the output valid JSON.
+ * The elision marker is output as a string element in place of the omitted
+ * elements, as a member named and valued by the marker in place of the
+ * omitted fields and map entries, e.g. <code>{"a":1,"...":"..."}</code>,
+ * and at the end of a truncated string, inside the quotes.</p>
+ */
+public class JsonStyle extends RecursiveStyle {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Digits of the unicode escape sequences
+     */
+    private static final char[] HEX_DIGITS =
+            "0123456789abcdef".toCharArray();
+
+    /**
+     * Builder for {@link JsonStyle}.
+     *
+     * <p>The nested objects are built by {@link ToStringByFieldsBuilder}
+     * by default.</p>
+     */
+    public static class Builder extends RecursiveStyle.Builder {
+
+        /**
+         * Constructor. The nested objects are built by
+         * {@link ToStringByFieldsBuilder}, unless set otherwise.
+         */
+        Builder() {
+            super.toStringBuilder(ToStringByFieldsBuilder.class);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Builder acceptAnnotations(Class... annotations) {
+            super.acceptAnnotations(annotations);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Builder acceptClasses(Class... classes) {
+            super.acceptClasses(classes);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Builder acceptPackages(String... packages) {
+            super.acceptPackages(packages);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Builder toStringBuilder(
+                Class<? extends ToStringBuilder> toStringBuilderClass) {
+
+            super.toStringBuilder(toStringBuilderClass);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Builder maxLength(int maxLength) {
+            super.maxLength(maxLength);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Builder maxElements(int maxElements) {
+            super.maxElements(maxElements);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Builder maxArrayLength(int maxArrayLength) {
+            super.maxArrayLength(maxArrayLength);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Builder maxStringLength(int maxStringLength) {
+            super.maxStringLength(maxStringLength);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * <p>The marker is escaped as any JSON string.</p>
+         */
+        @Override
+        public Builder elisionMarker(String elisionMarker) {
+            super.elisionMarker(elisionMarker);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Builder maxDepth(int maxDepth) {
+            super.maxDepth(maxDepth);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Builder referenceVisited(boolean referenceVisited) {
+            super.referenceVisited(referenceVisited);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Builder sortMapKeys(boolean sortMapKeys) {
+            super.sortMapKeys(sortMapKeys);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Builder parallelThreshold(int parallelThreshold) {
+            super.parallelThreshold(parallelThreshold);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * <p>The hexadecimal and base64 content is rendered
+         * as a string.</p>
+         */
+        @Override
+        public Builder byteArrayFormat(ByteArrayFormat byteArrayFormat) {
+            super.byteArrayFormat(byteArrayFormat);
+            return this;
+        }
+
+        /**
+         * Builds the {@link JsonStyle}.
+         *
+         * @return The {@link JsonStyle} object.
+         */
+        @Override
+        public JsonStyle build() {
+            return new JsonStyle(this);
+        }
+    }
+
+    /**
+     * Provides builder for this class.
+     *
+     * @return The builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param builder the settings of the style
+     */
+    private JsonStyle(Builder builder) {
+        super(builder);
+
+        this.setUseIdentityHashCode(false);
+        this.setContentStart("{");
+        this.setContentEnd("}");
+        this.setFieldNameValueSeparator(":");
+        this.setFieldSeparator(",");
+        this.setNullText("null");
+        this.setArrayStart("[");
+        this.setArraySeparator(",");
+        this.setArrayEnd("]");
+    }
+
+    /**
+     * Provides builder initialized with the settings of this style.
+     *
+     * @return The builder
+     */
+    @Override
+    public Builder toBuilder() {
+        return this.copyInto(new Builder());
+    }
+
+    /**
+     * Restores the resolved delegate after deserialization.
+     *
+     * @return the equally configured style
+     */
+    private Object readResolve() {
+        return new JsonStyle(this.toBuilder());
+    }
+
+    /**
+     * Provides the name of the field to report an unavailable value under.
+     * The text styles report the value without the name, while JSON
+     * requires every value to be named.
+     *
+     * @param style     the style of the output
+     * @param fieldName the name of the field
+     * @return the name, or <code>null</code> to omit it
+     */
+    static String unavailableFieldName(ToStringStyle style, String fieldName) {
+        return style instanceof JsonStyle ? fieldName : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>An array is rendered as a JSON array, without the braces.</p>
+     */
+    @Override
+    public void appendStart(StringBuffer buffer, Object object) {
+        if (object == null || !object.getClass().isArray()) {
+            super.appendStart(buffer, object);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>An array is rendered as a JSON array, without the braces.</p>
+     */
+    @Override
+    public void appendEnd(StringBuffer buffer, Object object) {
+        if (object == null || !object.getClass().isArray()) {
+            super.appendEnd(buffer, object);
+        }
+    }
+
+    /**
+     * Outputs nothing, as the class name is not part of JSON. The class
+     * name is still in use, so that the object is registered for
+     * the detection of cycles, as any other style does on output
+     * of the class name.
+     */
+    @Override
+    protected void appendClassName(StringBuffer buffer, Object object) {
+        int length = buffer.length();
+        super.appendClassName(buffer, object);
+        buffer.setLength(length);
+    }
+
+    /**
+     * Appends the quoted field name, followed by the separator.
+     * A field without a name is output under the empty name.
+     */
+    @Override
+    protected void appendFieldStart(StringBuffer buffer, String fieldName) {
+        if (this.isUseFieldNames()) {
+            appendQuoted(buffer, fieldName == null ? "" : fieldName);
+            buffer.append(this.getFieldNameValueSeparator());
+        }
+    }
+
+    /**
+     * Appends the quoted string value of the key, followed by the separator.
+     */
+    @Override
+    protected void appendMapKey(
+            StringBuffer buffer, String fieldName, Object key) {
+        appendQuoted(buffer, String.valueOf(key));
+        buffer.append(this.getFieldNameValueSeparator());
+    }
+
+    /**
+     * Appends the reference to the object as a quoted string.
+     */
+    @Override
+    protected void appendCyclicObject(
+            StringBuffer buffer, String fieldName, Object value) {
+        appendQuoted(buffer, ObjectUtils.identityToString(value));
+    }
+
+    /**
+     * Append detail of an object entry
+     *
+     * <p>Collections, maps and arrays are passed through
+     * {@link #appendInternal(StringBuffer, String, Object, boolean)}, as
+     * the map values reach this method directly. It registers the value
+     * for the detection of cycles and unregisters it at the end.</p>
+     *
+     * @param buffer string buffer to write into
+     * @param fieldName name of the field
+     * @param value the object value
+     */
+    @Override
+    public void appendDetail(
+            StringBuffer buffer, String fieldName, Object value) {
+
+        if (value instanceof String) {
+            this.appendTruncated(buffer, (String) value);
+        } else if (value instanceof Character) {
+            appendQuoted(buffer, value.toString());
+        } else if (value instanceof Boolean) {
+            buffer.append(value);
+        } else if (value instanceof Number) {
+            this.appendNumber(buffer, (Number) value);
+        } else if (value instanceof Collection
+                || value instanceof Map
+                || value.getClass().isArray()) {
+            this.appendInternal(buffer, fieldName, value, true);
+        } else if (this.accept(value.getClass())) {
+            super.appendDetail(buffer, fieldName, value);
+        } else {
+            appendQuoted(buffer, String.valueOf(value));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void appendDetail(
+            StringBuffer buffer, String fieldName, char value) {
+        appendQuoted(buffer, String.valueOf(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The value, which is not finite, is rendered as a string.</p>
+     */
+    @Override
+    protected void appendDetail(
+            StringBuffer buffer, String fieldName, double value) {
+        if (Double.isFinite(value)) {
+            buffer.append(value);
+        } else {
+            buffer.append('"').append(value).append('"');
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The value, which is not finite, is rendered as a string.</p>
+     */
+    @Override
+    protected void appendDetail(
+            StringBuffer buffer, String fieldName, float value) {
+        if (Float.isFinite(value)) {
+            buffer.append(value);
+        } else {
+            buffer.append('"').append(value).append('"');
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The hexadecimal and base64 content is rendered as a string.</p>
+     */
+    @Override
+    protected void appendDetail(
+            StringBuffer buffer, String fieldName, byte[] array) {
+
+        if (this.getByteArrayFormat() == ByteArrayFormat.HEX) {
+            int stop = this.stopPosition(buffer);
+            buffer.append('"');
+            this.appendHex(buffer, array, stop);
+            buffer.append('"');
+        } else if (this.getByteArrayFormat() == ByteArrayFormat.BASE64) {
+            int stop = this.stopPosition(buffer);
+            buffer.append('"');
+            this.appendBase64(buffer, array, stop);
+            buffer.append('"');
+        } else {
+            super.appendDetail(buffer, fieldName, array);
+        }
+    }
+
+    /**
+     * Appends the quoted marker in place of the omitted fields,
+     * as a member named by the marker.
+     */
+    @Override
+    void appendElidedFields(StringBuffer buffer) {
+        this.appendElidedEntries(buffer);
+        this.appendFieldSeparator(buffer);
+    }
+
+    /**
+     * Appends the quoted marker as an element.
+     */
+    @Override
+    void appendElidedItem(StringBuffer buffer) {
+        appendQuoted(buffer, this.getElisionMarker());
+    }
+
+    /**
+     * Appends the quoted marker as a member named by the marker.
+     */
+    @Override
+    void appendElidedEntries(StringBuffer buffer) {
+        appendQuoted(buffer, this.getElisionMarker());
+        buffer.append(this.getFieldNameValueSeparator());
+        appendQuoted(buffer, this.getElisionMarker());
+    }
+
+    /**
+     * Appends the escaped marker, inside the quotes of the content.
+     */
+    @Override
+    void appendElidedContent(StringBuffer buffer) {
+        appendEscaped(buffer, this.getElisionMarker(), 0);
+    }
+
+    /**
+     * Appends the string as a JSON string, truncated to the maximum
+     * string length and the remaining length of the output.
+     */
+    private void appendTruncated(StringBuffer buffer, String value) {
+        int limit = this.truncatedLength(buffer, value);
+
+        buffer.append('"');
+        if (limit < value.length()) {
+            appendEscaped(buffer, value.substring(0, limit), 0);
+            this.appendElidedContent(buffer);
+        } else {
+            appendEscaped(buffer, value, 0);
+        }
+        buffer.append('"');
+    }
+
+    /**
+     * Appends the number as it is, if it is a JSON number,
+     * otherwise as a string.
+     */
+    private void appendNumber(StringBuffer buffer, Number value) {
+        if (value instanceof Double) {
+            this.appendDetail(buffer, null, value.doubleValue());
+        } else if (value instanceof Float) {
+            this.appendDetail(buffer, null, value.floatValue());
+        } else if (value instanceof Integer
+                || value instanceof Long
+                || value instanceof Short
+                || value instanceof Byte
+                || value instanceof BigInteger
+                || value instanceof BigDecimal
+                || value instanceof AtomicInteger
+                || value instanceof AtomicLong) {
+            buffer.append(value);
+        } else {
+            appendQuoted(buffer, String.valueOf(value));
+        }
+    }
+
+    /**
+     * Appends the value as a JSON string. The characters, which need not
+     * be escaped, are copied in runs, straight from the value.
+     *
+     * @param buffer string buffer to write into
+     * @param value  the value
+     */
+    static void appendQuoted(StringBuffer buffer, CharSequence value) {
+        buffer.append('"');
+        appendEscaped(buffer, value, 0);
+        buffer.append('"');
+    }
+
+    /**
+     * Appends the value escaped as the content of a JSON string,
+     * from the given index. The characters, which need not be escaped,
+     * are copied in runs, straight from the value.
+     *
+     * @param buffer string buffer to write into
+     * @param value  the value
+     * @param start  the index of the first character to append
+     */
+    static void appendEscaped(
+            StringBuffer buffer, CharSequence value, int start) {
+
+        int length = value.length();
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+
+            buffer.append(value, start, i);
+            start = i + 1;
+
+            switch (c) {
+                case '"':
+                    buffer.append("\\\"");
+                    break;
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                case '\b':
+                    buffer.append("\\b");
+                    break;
+                case '\f':
+                    buffer.append("\\f");
+                    break;
+                default:
+                    buffer.append("\\u00")
+                            .append(HEX_DIGITS[c >> 4])
+                            .append(HEX_DIGITS[c & 0xf]);
+            }
+        }
+        buffer.append(value, start, length);
+    }
+}
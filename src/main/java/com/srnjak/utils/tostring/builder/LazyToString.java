@@ -0,0 +1,88 @@
+package com.srnjak.utils.tostring.builder;
+
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * <p>String representation of an object, which is built only
+ * when {@link #toString()} is invoked for the first time.</p>
+ *
+ * <p>It is meant to be passed to loggers and other consumers, which may
+ * not need the string at all, e.g. a disabled log level. Until then it
+ * costs no reflection. Once built, the string is cached and returned by
+ * all later invocations.</p>
+ *
+ * <p>It may be shared between threads. If the first invocations race,
+ * the string may be built more than once, but the same value is
+ * returned.</p>
+ *
+ * @see ToStringByFieldsBuilder#lazy(Object,
+ *          org.apache.commons.lang3.builder.ToStringStyle)
+ * @see ToStringByGettersBuilder#lazy(Object,
+ *          org.apache.commons.lang3.builder.ToStringStyle)
+ * @see ToStringRenderer#lazy(Object)
+ */
+public final class LazyToString implements Supplier<String> {
+
+    private final Object object;
+    private final Object style;
+    private final BiFunction<Object, Object, String> renderer;
+
+    /**
+     * The built string, <code>null</code> until built
+     */
+    private volatile String value;
+
+    /**
+     * Constructor.
+     *
+     * @param <S>      the type of the style
+     * @param object   the object to be output
+     * @param style    the style passed to the renderer, may be
+     *                 <code>null</code>
+     * @param renderer builds the string of the object in the style
+     * @throws IllegalArgumentException if the object is <code>null</code>
+     */
+    @SuppressWarnings("unchecked")
+    <S> LazyToString(
+            Object object,
+            S style,
+            BiFunction<Object, ? super S, String> renderer) {
+
+        if (object == null) {
+            throw new IllegalArgumentException(
+                    "The Object passed in should not be null.");
+        }
+
+        this.object = object;
+        this.style = style;
+        this.renderer = (BiFunction<Object, Object, String>) renderer;
+    }
+
+    /**
+     * Returns the string representation, building it on the first
+     * invocation.
+     *
+     * @return the String result
+     */
+    @Override
+    public String get() {
+        String result = this.value;
+        if (result == null) {
+            result = this.renderer.apply(this.object, this.style);
+            this.value = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the string representation, building it on the first
+     * invocation.
+     *
+     * @return the String result
+     */
+    @Override
+    public String toString() {
+        return this.get();
+    }
+}
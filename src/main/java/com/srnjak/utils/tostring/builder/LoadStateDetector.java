@@ -0,0 +1,53 @@
+package com.srnjak.utils.tostring.builder;
+
+/**
+ * <p>Detects the properties, which are not loaded yet, e.g. lazy
+ * associations of JPA entities.</p>
+ *
+ * <p>The detector is consulted before a getter is invoked. If the property
+ * is not loaded, {@link #NOT_LOADED} is output instead of its value,
+ * so the output does not trigger loading. The detector itself must not
+ * load the property. A detector failing with
+ * <code>java.lang.RuntimeException</code> makes the property reported as
+ * <code>&lt;N/A&gt;</code>, like a failing getter.</p>
+ *
+ * @see ToStringByGettersBuilder#useLoadStateDetector(LoadStateDetector)
+ * @see ToStringRenderer.Builder#loadStateDetector(LoadStateDetector)
+ */
+@FunctionalInterface
+public interface LoadStateDetector {
+
+    /**
+     * Text output instead of the value, which is not loaded
+     */
+    String NOT_LOADED = "<not loaded>";
+
+    /**
+     * Detector considering all properties loaded
+     */
+    LoadStateDetector NONE = (object, propertyName) -> true;
+
+    /**
+     * Returns whether or not the given property of the object is loaded.
+     *
+     * @param object       the object declaring the property
+     * @param propertyName the name of the property
+     * @return false if the property is known not to be loaded
+     */
+    boolean isLoaded(Object object, String propertyName);
+
+    /**
+     * <p>Provides the detector asking the JPA persistence providers through
+     * <code>javax.persistence.PersistenceUtil.isLoaded</code>.</p>
+     *
+     * <p>If the JPA API is not available at runtime, it provides
+     * {@link #NONE}.</p>
+     *
+     * @return the detector
+     */
+    static LoadStateDetector persistence() {
+        return PersistenceLoadState.available()
+                ? PersistenceLoadState.detector()
+                : NONE;
+    }
+}
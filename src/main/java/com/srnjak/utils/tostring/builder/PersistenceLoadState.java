@@ -0,0 +1,70 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+import javax.persistence.Persistence;
+import javax.persistence.PersistenceUtil;
+import java.util.logging.Logger;
+
+/**
+ * <p>Load state of the properties provided by the JPA persistence
+ * providers.</p>
+ *
+ * <p>The JPA API is an optional dependency. The class refers to it only
+ * after {@link #available()} confirmed it can be loaded.</p>
+ */
+final class PersistenceLoadState {
+
+    /**
+     * Logger
+     */
+    private static final Logger log =
+            Logger.getLogger(PersistenceLoadState.class.getName());
+
+    /**
+     * Name of the class, whose presence indicates the JPA API
+     */
+    private static final String PERSISTENCE_CLASS =
+            "javax.persistence.Persistence";
+
+    private PersistenceLoadState() {
+    }
+
+    /**
+     * Returns whether or not the JPA API is available.
+     *
+     * @return true if the JPA API can be loaded
+     */
+    static boolean available() {
+        try {
+            Class.forName(
+                    PERSISTENCE_CLASS,
+                    false,
+                    PersistenceLoadState.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.fine(() -> "JPA API is not available: " + e);
+            return false;
+        }
+    }
+
+    /**
+     * Provides the detector asking the persistence providers.
+     * The providers, which fail to tell the load state,
+     * are considered to have the property loaded.
+     *
+     * @return the detector
+     */
+    static LoadStateDetector detector() {
+        PersistenceUtil persistenceUtil = Persistence.getPersistenceUtil();
+        return (object, propertyName) -> {
+            try {
+                return persistenceUtil.isLoaded(object, propertyName);
+            } catch (RuntimeException e) {
+                log.finer(e::toString);
+                log.finest(() -> ExceptionUtils.getStackTrace(e));
+                return true;
+            }
+        };
+    }
+}
@@ -1,15 +1,35 @@
 package com.srnjak.utils.tostring.builder;
 
-import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.builder.RecursiveToStringStyle;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
 
 /**
  * <p>Recursive style for Apache's
@@ -19,25 +39,87 @@ import java.util.Map;
  */
 public class RecursiveStyle extends RecursiveToStringStyle {
 
+    /**
+     * Value of the limits, which are not set
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /**
+     * Default text replacing the content omitted due to the limits
+     */
+    public static final String DEFAULT_ELISION_MARKER = "...";
+
     /**
      * Start map indicator
      */
-    private static final String MAP_START = "{";
+    static final String MAP_START = "{";
 
     /**
      * End map indicator
      */
-    private static final String MAP_END = "}";
+    static final String MAP_END = "}";
 
     /**
      * Separator of map entries
      */
-    private static final String MAP_ENTRIES_SEPARATOR = ",";
+    static final String MAP_ENTRIES_SEPARATOR = ",";
 
     /**
      * Separator between key and value of the map entry
      */
-    private static final String KEY_VALUE_SEPARATOR = "=";
+    static final String KEY_VALUE_SEPARATOR = "=";
+
+    /**
+     * Deterministic order of map keys: <code>null</code> first, then by
+     * class name, then by natural order if comparable, or by string value
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Comparator<Object> KEY_ORDER =
+            Comparator.nullsFirst((a, b) -> {
+                if (a.getClass() != b.getClass()) {
+                    return a.getClass().getName()
+                            .compareTo(b.getClass().getName());
+                }
+                if (a instanceof Comparable) {
+                    return ((Comparable) a).compareTo(b);
+                }
+                return String.valueOf(a).compareTo(String.valueOf(b));
+            });
+
+    /**
+     * Digits of the hexadecimal byte array format
+     */
+    private static final char[] HEX_DIGITS =
+            "0123456789abcdef".toCharArray();
+
+    /**
+     * Digits of the base64 byte array format
+     */
+    private static final char[] BASE64_DIGITS =
+            ("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz"
+                    + "0123456789+/").toCharArray();
+
+    /**
+     * Format of the content of byte arrays.
+     */
+    public enum ByteArrayFormat {
+
+        /**
+         * Decimal values, separated as the elements of any other array,
+         * e.g. <code>{1,-1}</code>
+         */
+        DECIMAL,
+
+        /**
+         * Two hexadecimal digits per byte, e.g. <code>{01ff}</code>
+         */
+        HEX,
+
+        /**
+         * Base64 encoding, e.g. <code>{Af8=}</code>
+         */
+        BASE64
+    }
 
     /**
      * Builder for {@link RecursiveStyle}.
@@ -51,6 +133,17 @@ public class RecursiveStyle extends RecursiveToStringStyle {
         private Class<? extends ToStringBuilder> toStringBuilderClass =
                 ToStringBuilder.class;
 
+        private int maxLength = UNLIMITED;
+        private int maxElements = UNLIMITED;
+        private int maxArrayLength = UNLIMITED;
+        private int maxStringLength = UNLIMITED;
+        private String elisionMarker = DEFAULT_ELISION_MARKER;
+        private int maxDepth = UNLIMITED;
+        private boolean referenceVisited = false;
+        private boolean sortMapKeys = false;
+        private ByteArrayFormat byteArrayFormat = ByteArrayFormat.DECIMAL;
+        private int parallelThreshold = UNLIMITED;
+
         /**
          * Specifies annotations to be accepted.
          *
@@ -100,14 +193,165 @@ public class RecursiveStyle extends RecursiveToStringStyle {
             return this;
         }
 
+        /**
+         * Specifies the maximum length of the whole output, nested objects
+         * included. Once it is reached, the remaining fields, elements and
+         * nested objects are replaced by the elision marker. The output
+         * may exceed the limit by the last appended value.
+         *
+         * @param maxLength The maximum number of characters.
+         * @return this builder
+         */
+        public Builder maxLength(int maxLength) {
+            this.maxLength = requireNonNegative(maxLength, "maxLength");
+            return this;
+        }
+
+        /**
+         * Specifies the maximum number of rendered elements of a collection
+         * or entries of a map. The rest is replaced by the elision marker.
+         *
+         * @param maxElements The maximum number of elements.
+         * @return this builder
+         */
+        public Builder maxElements(int maxElements) {
+            this.maxElements = requireNonNegative(maxElements, "maxElements");
+            return this;
+        }
+
+        /**
+         * Specifies the maximum number of rendered array elements.
+         * The rest is replaced by the elision marker.
+         *
+         * @param maxArrayLength The maximum number of elements.
+         * @return this builder
+         */
+        public Builder maxArrayLength(int maxArrayLength) {
+            this.maxArrayLength =
+                    requireNonNegative(maxArrayLength, "maxArrayLength");
+            return this;
+        }
+
+        /**
+         * Specifies the maximum number of rendered characters of a string
+         * value. The rest is replaced by the elision marker.
+         *
+         * @param maxStringLength The maximum number of characters.
+         * @return this builder
+         */
+        public Builder maxStringLength(int maxStringLength) {
+            this.maxStringLength =
+                    requireNonNegative(maxStringLength, "maxStringLength");
+            return this;
+        }
+
+        /**
+         * Specifies the text replacing the content omitted due to the limits.
+         *
+         * @param elisionMarker The elision marker.
+         * @return this builder
+         */
+        public Builder elisionMarker(String elisionMarker) {
+            this.elisionMarker = elisionMarker == null ? "" : elisionMarker;
+            return this;
+        }
+
+        /**
+         * Specifies the maximum depth of the nested objects. The root object
+         * is at depth 0. The accepted objects below the maximum depth are
+         * rendered as a reference, e.g. <code>Person@182f0db</code>.
+         *
+         * @param maxDepth The maximum depth.
+         * @return this builder
+         */
+        public Builder maxDepth(int maxDepth) {
+            this.maxDepth = requireNonNegative(maxDepth, "maxDepth");
+            return this;
+        }
+
+        /**
+         * Specifies whether an accepted object, which has already been
+         * rendered within the same output, is rendered only as a reference,
+         * e.g. <code>Person@182f0db</code>.
+         *
+         * <p>Cycles are always rendered as a reference.</p>
+         *
+         * <p>The visited objects are tracked within an output built by
+         * {@link ToStringByFieldsBuilder} or {@link ToStringByGettersBuilder},
+         * or else within each nested object.</p>
+         *
+         * @param referenceVisited whether to reference the visited objects
+         * @return this builder
+         */
+        public Builder referenceVisited(boolean referenceVisited) {
+            this.referenceVisited = referenceVisited;
+            return this;
+        }
+
+        /**
+         * Specifies whether to render map entries in a deterministic order
+         * of the keys, instead of the iteration order of the map. Sorted
+         * maps keep their own order.
+         *
+         * <p>Keys of the same class are compared by their natural order,
+         * if they are comparable, otherwise by their string value.</p>
+         *
+         * @param sortMapKeys whether to sort the map entries by the keys
+         * @return this builder
+         */
+        public Builder sortMapKeys(boolean sortMapKeys) {
+            this.sortMapKeys = sortMapKeys;
+            return this;
+        }
+
+        /**
+         * Specifies the format of the content of byte arrays.
+         *
+         * @param byteArrayFormat The byte array format.
+         * @return this builder
+         */
+        public Builder byteArrayFormat(ByteArrayFormat byteArrayFormat) {
+            this.byteArrayFormat = byteArrayFormat == null
+                    ? ByteArrayFormat.DECIMAL
+                    : byteArrayFormat;
+            return this;
+        }
+
+        /**
+         * Specifies the number of elements, from which a collection or
+         * a map is rendered in parallel. The elements are split into chunks,
+         * rendered on the common fork-join pool, and concatenated in order.
+         * By default all collections are rendered in the calling thread.
+         *
+         * <p>It is meant for large diagnostic outputs. The collections are
+         * rendered in the calling thread regardless of the threshold, if
+         * the maximum length is set or visited objects are referenced,
+         * as they depend on the order of rendering.</p>
+         *
+         * @param parallelThreshold The minimum number of elements.
+         * @return this builder
+         */
+        public Builder parallelThreshold(int parallelThreshold) {
+            this.parallelThreshold =
+                    requireNonNegative(parallelThreshold, "parallelThreshold");
+            return this;
+        }
+
         /**
          * Builds the {@link RecursiveStyle}.
          *
          * @return The {@link RecursiveStyle} object.
          */
         public RecursiveStyle build() {
-            return new RecursiveStyle(
-                    annotations, classes, packages, toStringBuilderClass);
+            return new RecursiveStyle(this);
+        }
+
+        private static int requireNonNegative(int value, String name) {
+            if (value < 0) {
+                throw new IllegalArgumentException(
+                        name + " must not be negative: " + value);
+            }
+            return value;
         }
     }
 
@@ -125,6 +369,37 @@ public class RecursiveStyle extends RecursiveToStringStyle {
 
     private Class<? extends ToStringBuilder> toStringBuilderClass;
 
+    private int maxLength;
+    private int maxElements;
+    private int maxArrayLength;
+    private int maxStringLength;
+    private String elisionMarker;
+    private int maxDepth;
+    private boolean referenceVisited;
+    private boolean sortMapKeys;
+    private ByteArrayFormat byteArrayFormat;
+    private int parallelThreshold;
+
+    /**
+     * Builds the string of a nested object,
+     * resolved from {@link #toStringBuilderClass}
+     */
+    private transient BiFunction<Object, ToStringStyle, Object> delegate;
+
+    /**
+     * Precompiled and memoized acceptance of the classes
+     */
+    private transient ClassAcceptance acceptance;
+
+    /**
+     * State of the rendering in the current thread
+     */
+    private transient ThreadLocal<Render> render;
+
+    /**
+     * Learned length of the outputs in this style per class
+     */
+    private transient SizeHints sizeHints;
 
     /**
      * Constructor.
@@ -143,114 +418,1218 @@ public class RecursiveStyle extends RecursiveToStringStyle {
             String[] packages,
             Class<? extends ToStringBuilder> toStringBuilderClass) {
 
-        this.annotations = annotations;
-        this.classes = classes;
-        this.packages = packages;
+        this(builder()
+                .acceptAnnotations(annotations)
+                .acceptClasses(classes)
+                .acceptPackages(packages)
+                .toStringBuilder(toStringBuilderClass));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param builder the settings of the style
+     */
+    @SuppressWarnings("unchecked")
+    RecursiveStyle(Builder builder) {
+        this.annotations =
+                (Class<? extends Annotation>[]) builder.annotations;
+        this.classes = builder.classes;
+        this.packages = builder.packages;
 
-        this.toStringBuilderClass = toStringBuilderClass;
+        this.toStringBuilderClass = builder.toStringBuilderClass;
+
+        this.maxLength = builder.maxLength;
+        this.maxElements = builder.maxElements;
+        this.maxArrayLength = builder.maxArrayLength;
+        this.maxStringLength = builder.maxStringLength;
+        this.elisionMarker = builder.elisionMarker;
+        this.maxDepth = builder.maxDepth;
+        this.referenceVisited = builder.referenceVisited;
+        this.sortMapKeys = builder.sortMapKeys;
+        this.byteArrayFormat = builder.byteArrayFormat;
+        this.parallelThreshold = builder.parallelThreshold;
+
+        this.delegate = resolveDelegate(toStringBuilderClass);
+        this.acceptance = new ClassAcceptance(annotations, classes, packages);
+        this.render = ThreadLocal.withInitial(Render::new);
+        this.sizeHints = new SizeHints();
     }
 
     /**
-     * Returns whether or not to recursively format the given Class.
+     * Provides builder initialized with the settings of this style.
+     *
+     * @return The builder
      */
-    @Override
-    protected boolean accept(Class<?> clazz) {
+    public Builder toBuilder() {
+        return this.copyInto(builder());
+    }
+
+    /**
+     * Copies the settings of this style into the given builder.
+     *
+     * @param <B>     the type of the builder
+     * @param builder the builder
+     * @return the given builder
+     */
+    <B extends Builder> B copyInto(B builder) {
+        Builder target = builder;
+        target.annotations = annotations;
+        target.classes = classes;
+        target.packages = packages;
+        target.toStringBuilderClass = toStringBuilderClass;
+        target.maxLength = maxLength;
+        target.maxElements = maxElements;
+        target.maxArrayLength = maxArrayLength;
+        target.maxStringLength = maxStringLength;
+        target.elisionMarker = elisionMarker;
+        target.maxDepth = maxDepth;
+        target.referenceVisited = referenceVisited;
+        target.sortMapKeys = sortMapKeys;
+        target.byteArrayFormat = byteArrayFormat;
+        target.parallelThreshold = parallelThreshold;
+        return builder;
+    }
+
+    /**
+     * Resolves the static <code>toString(Object, ToStringStyle)</code>
+     * method of the given toStringBuilder class. The known builders are
+     * called directly, any other class through reflection.
+     *
+     * @param toStringBuilderClass The class to build string out of an object.
+     * @return the function building the string of a nested object
+     */
+    private static BiFunction<Object, ToStringStyle, Object> resolveDelegate(
+            Class<? extends ToStringBuilder> toStringBuilderClass) {
+
+        if (ToStringByFieldsBuilder.class.equals(toStringBuilderClass)) {
+            return ToStringByFieldsBuilder::toString;
+        }
+        if (ToStringByGettersBuilder.class.equals(toStringBuilderClass)) {
+            return ToStringByGettersBuilder::toString;
+        }
+        if (ReflectionToStringBuilder.class.equals(toStringBuilderClass)) {
+            return ReflectionToStringBuilder::toString;
+        }
 
-        if (clazz.isEnum()) {
-            return false;
+        final Method method;
+        try {
+            method = toStringBuilderClass.getMethod(
+                    "toString", Object.class, ToStringStyle.class);
+        } catch (NoSuchMethodException e) {
+            return (value, style) -> {
+                throw new RuntimeException(e);
+            };
         }
 
-        return List.of(
-                Arrays.stream(annotations).anyMatch(clazz::isAnnotationPresent),
-                Arrays.asList(classes).contains(clazz),
-                Arrays.stream(packages).anyMatch(
-                        clazz.getPackageName()::startsWith))
-                .contains(Boolean.TRUE);
+        return (value, style) -> {
+            try {
+                return method.invoke(null, value, style);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    /**
+     * Provides the learned length of the outputs in this style.
+     *
+     * @return the size hints
+     */
+    SizeHints sizeHints() {
+        return sizeHints;
+    }
+
+    /**
+     * Restores the resolved delegate after deserialization.
+     *
+     * @return the equally configured style
+     */
+    private Object readResolve() {
+        return new RecursiveStyle(toBuilder());
+    }
+
+    /**
+     * Returns whether or not to recursively format the given Class.
+     *
+     * <p>Enums, primitive wrappers and <code>String</code> are never
+     * accepted, even if their package is, e.g. with
+     * <code>acceptPackages("java.lang")</code>. A subclass overriding
+     * this method is expected to refuse them as well.</p>
+     */
+    @Override
+    protected boolean accept(Class<?> clazz) {
+        return acceptance.accept(clazz);
     }
 
     /**
      * {@inheritDoc}
+     *
+     * <p>Records the object as visited, if visited objects are referenced
+     * within the output being built.</p>
      */
     @Override
-    protected void appendDetail(
-            StringBuffer buffer, String fieldName, Map<?, ?> map) {
-        this.appendClassName(buffer, map);
-        this.appendIdentityHashCode(buffer, map);
-        this.appendDetail(
-                buffer,
-                fieldName,
-                map.entrySet().toArray(Map.Entry[]::new));
-    };
+    public void appendStart(StringBuffer buffer, Object object) {
+        if (referenceVisited && object != null) {
+            Render render = this.render.get();
+            if (render.visited != null) {
+                render.visited.put(object, object);
+            }
+        }
+        super.appendStart(buffer, object);
+    }
 
     /**
-     * Append detail of map entry
+     * {@inheritDoc}
      *
-     * @param buffer string buffer to write into
-     * @param fieldName name of the field
-     * @param entries array of map entries
+     * <p>If collections are rendered in parallel, it records the values
+     * being rendered, so the chunks rendered in other threads detect
+     * the cycles back to them.</p>
      */
-    protected void appendDetail(
+    @Override
+    protected void appendInternal(
             StringBuffer buffer,
             String fieldName,
-            Map.Entry<?, ?>[] entries) {
+            Object value,
+            boolean detail) {
 
-        buffer.append(MAP_START);
+        if (parallelThreshold == UNLIMITED) {
+            super.appendInternal(buffer, fieldName, value, detail);
+            return;
+        }
 
-        for(int i = 0; i < entries.length; ++i) {
-            Object key = entries[i].getKey();
-            Object value = entries[i].getValue();
+        Render render = this.render.get();
+        if (render.forked != null
+                && render.forked.contains(value)
+                && !(value instanceof Number
+                        || value instanceof Boolean
+                        || value instanceof Character)) {
 
-            if (i > 0) {
-                buffer.append(MAP_ENTRIES_SEPARATOR);
-            }
+            this.appendCyclicObject(buffer, fieldName, value);
+            return;
+        }
 
-            this.appendDetail(buffer, fieldName, key);
-            buffer.append(KEY_VALUE_SEPARATOR);
+        render.open(value);
+        try {
+            super.appendInternal(buffer, fieldName, value, detail);
+        } finally {
+            render.close(value);
+        }
+    }
+
+    /**
+     * Builds an output of the object in the given style. If it is
+     * a recursive style, the outermost output in the thread keeps the state
+     * of the rendering, which is discarded when the output ends, even if
+     * it fails. The object is recorded as being rendered until its output
+     * ends, if collections are rendered in parallel.
+     *
+     * @param style  the style of the builder
+     * @param object the object being output
+     * @param output builds the output
+     * @return the output
+     */
+    static String build(
+            ToStringStyle style, Object object, Supplier<String> output) {
+        return style instanceof RecursiveStyle
+                ? ((RecursiveStyle) style).build(object, output)
+                : output.get();
+    }
+
+    private String build(Object object, Supplier<String> output) {
+        Render render = this.render.get();
+        boolean outermost = !render.building;
+        boolean open = parallelThreshold != UNLIMITED && object != null;
 
-            if (value == null) {
-                this.appendNullText(buffer, fieldName);
-            } else {
-                this.appendDetail(buffer, fieldName, value);
+        if (outermost) {
+            render.building = true;
+            if (referenceVisited) {
+                render.visited = new IdentityHashMap<>();
             }
         }
+        if (open) {
+            render.open(object);
+        }
+        try {
+            return output.get();
+        } finally {
+            if (open) {
+                render.close(object);
+            }
+            if (outermost) {
+                render.building = false;
+                render.visited = null;
+            }
+        }
+    }
 
-        buffer.append(MAP_END);
+    /**
+     * Returns the style, if it limits the length of the output.
+     *
+     * @param style the style of a builder
+     * @return the style, or <code>null</code> if it has no length limit
+     */
+    static RecursiveStyle budgetOf(ToStringStyle style) {
+        return style instanceof RecursiveStyle
+                && ((RecursiveStyle) style).maxLength != UNLIMITED
+                ? (RecursiveStyle) style
+                : null;
     }
 
     /**
-     * Append detail of an object entry
+     * Returns whether the output written into the given buffer has reached
+     * the maximum length, counting the output of the enclosing objects and
+     * the content already streamed out of the buffer.
+     *
+     * @param buffer string buffer being written into
+     * @return true if nothing more should be rendered
+     */
+    boolean isExhausted(StringBuffer buffer) {
+        return maxLength != UNLIMITED && this.consumed(buffer) >= maxLength;
+    }
+
+    /**
+     * Appends the elision marker in place of the omitted fields.
      *
      * @param buffer string buffer to write into
-     * @param fieldName name of the field
-     * @param value the object value
      */
-    @Override
-    public void appendDetail(
-            StringBuffer buffer,
-            String fieldName,
-            Object value) {
+    void appendElidedFields(StringBuffer buffer) {
+        buffer.append(elisionMarker);
+        this.appendFieldSeparator(buffer);
+    }
+
+    /**
+     * Appends the elision marker in place of the omitted elements of
+     * an array or a collection, or of an omitted nested object.
+     *
+     * @param buffer string buffer to write into
+     */
+    void appendElidedItem(StringBuffer buffer) {
+        buffer.append(elisionMarker);
+    }
 
-        if (!ClassUtils.isPrimitiveWrapper(value.getClass())
-                && !String.class.equals(value.getClass())
-                && this.accept(value.getClass())) {
+    /**
+     * Appends the elision marker in place of the omitted map entries.
+     *
+     * @param buffer string buffer to write into
+     */
+    void appendElidedEntries(StringBuffer buffer) {
+        buffer.append(elisionMarker);
+    }
 
-            try {
-                buffer.append(
-                        toStringBuilderClass
-                                .getMethod(
-                                        "toString",
-                                        Object.class,
-                                        ToStringStyle.class)
-                                .invoke(null, value, this));
-            } catch (IllegalAccessException
-                    | InvocationTargetException
-                    | NoSuchMethodException e) {
-                throw new RuntimeException(e);
-            }
+    /**
+     * Appends the elision marker at the end of truncated content,
+     * i.e. a string or the digits of a byte array.
+     *
+     * @param buffer string buffer to write into
+     */
+    void appendElidedContent(StringBuffer buffer) {
+        buffer.append(elisionMarker);
+    }
 
-        } else {
-            super.appendDetail(buffer, fieldName, value);
-        }
+    /**
+     * @return the marker of the omitted content
+     */
+    String getElisionMarker() {
+        return elisionMarker;
+    }
 
+    /**
+     * Returns the length, to which the string is to be truncated, within
+     * the maximum string length and the remaining length of the output.
+     *
+     * @param buffer string buffer being written into
+     * @param value  the string
+     * @return the length of the string to output
+     */
+    int truncatedLength(StringBuffer buffer, String value) {
+        return (int) Math.min(
+                value.length(),
+                Math.min(
+                        maxStringLength,
+                        (long) this.stopPosition(buffer) - buffer.length()));
+    }
+
+    private long consumed(StringBuffer buffer) {
+        BufferDrain drain = BufferDrain.of(buffer);
+        return render.get().base
+                + buffer.length()
+                + (drain == null ? 0 : drain.drained());
+    }
+
+    /**
+     * Returns the length of the given buffer, at which the maximum length
+     * of the output is reached, provided that the buffer is not drained
+     * in between.
+     */
+    int stopPosition(StringBuffer buffer) {
+        if (maxLength == UNLIMITED) {
+            return Integer.MAX_VALUE;
+        }
+        long remaining = Math.max(0, maxLength - this.consumed(buffer));
+        return (int) Math.min(Integer.MAX_VALUE, buffer.length() + remaining);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The entries are iterated directly, instead of being copied into
+     * an array, unless the keys are to be sorted.</p>
+     */
+    @Override
+    protected void appendDetail(
+            StringBuffer buffer, String fieldName, Map<?, ?> map) {
+        this.appendClassName(buffer, map);
+        this.appendIdentityHashCode(buffer, map);
+
+        if (sortMapKeys && !(map instanceof SortedMap)) {
+            this.appendDetail(buffer, fieldName, sortedEntries(map));
+            return;
+        }
+
+        if (this.isParallel(Math.min(map.size(), maxElements))) {
+            this.appendDetail(buffer, fieldName, firstEntries(map));
+            return;
+        }
+
+        EntryAppender appender = new EntryAppender(buffer, fieldName);
+
+        buffer.append(MAP_START);
+
+        if (map.size() <= maxElements
+                && maxLength == UNLIMITED
+                && hasTrustedForEach(map)) {
+
+            map.forEach(appender);
+
+        } else {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (appender.isFull()) {
+                    appender.elide();
+                    break;
+                }
+                appender.accept(entry.getKey(), entry.getValue());
+            }
+        }
+
+        buffer.append(MAP_END);
+    };
+
+    /**
+     * Returns whether the map is of a common type, which iterates its
+     * entries in <code>forEach</code> without allocating an iterator
+     * or the entries.
+     */
+    private static boolean hasTrustedForEach(Map<?, ?> map) {
+        Class<?> type = map.getClass();
+        return type == HashMap.class
+                || type == LinkedHashMap.class
+                || type == TreeMap.class
+                || type == ConcurrentHashMap.class;
+    }
+
+    /**
+     * Provides the entries of the map in its iteration order, up to one
+     * more than the maximum number of elements, so that the omission
+     * can be detected.
+     */
+    private Map.Entry<?, ?>[] firstEntries(Map<?, ?> map) {
+        List<Map.Entry<?, ?>> entries = new ArrayList<>(
+                (int) Math.min(map.size(), maxElements + 1L));
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (entries.size() > maxElements) {
+                break;
+            }
+            entries.add(entry);
+        }
+        return entries.toArray(new Map.Entry<?, ?>[0]);
+    }
+
+    /**
+     * Provides the entries of the map ordered by {@link #KEY_ORDER}.
+     * If the map has more entries than the maximum number of elements,
+     * only the first ones are kept, one more than the maximum, so that
+     * the omission can be detected.
+     */
+    private Map.Entry<?, ?>[] sortedEntries(Map<?, ?> map) {
+        Comparator<Map.Entry<?, ?>> order =
+                Comparator.comparing(Map.Entry::getKey, KEY_ORDER);
+
+        Map.Entry<?, ?>[] entries;
+        if (map.size() <= maxElements) {
+            entries = map.entrySet().toArray(Map.Entry[]::new);
+        } else {
+            int limit = maxElements + 1;
+            PriorityQueue<Map.Entry<?, ?>> first =
+                    new PriorityQueue<>(limit + 1, order.reversed());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                first.add(entry);
+                if (first.size() > limit) {
+                    first.poll();
+                }
+            }
+            entries = first.toArray(Map.Entry[]::new);
+        }
+
+        Arrays.sort(entries, order);
+        return entries;
+    }
+
+    /**
+     * Append detail of map entry
+     *
+     * @param buffer string buffer to write into
+     * @param fieldName name of the field
+     * @param entries array of map entries
+     */
+    protected void appendDetail(
+            StringBuffer buffer,
+            String fieldName,
+            Map.Entry<?, ?>[] entries) {
+
+        int count = Math.min(entries.length, maxElements);
+        if (this.isParallel(count)) {
+            buffer.append(MAP_START);
+            this.appendInParallel(
+                    buffer, entries, count, MAP_ENTRIES_SEPARATOR,
+                    (chunk, i) -> this.appendEntry(
+                            chunk,
+                            fieldName,
+                            entries[i].getKey(),
+                            entries[i].getValue()));
+            if (entries.length > count) {
+                if (count > 0) {
+                    buffer.append(MAP_ENTRIES_SEPARATOR);
+                }
+                this.appendElidedEntries(buffer);
+            }
+            buffer.append(MAP_END);
+            return;
+        }
+
+        EntryAppender appender = new EntryAppender(buffer, fieldName);
+
+        buffer.append(MAP_START);
+
+        for (Map.Entry<?, ?> entry : entries) {
+            if (appender.isFull()) {
+                appender.elide();
+                break;
+            }
+            appender.accept(entry.getKey(), entry.getValue());
+        }
+
+        buffer.append(MAP_END);
+    }
+
+    /**
+     * Append detail of map key, followed by the separator of the value
+     *
+     * @param buffer string buffer to write into
+     * @param fieldName name of the field
+     * @param key the key of the map entry
+     */
+    protected void appendMapKey(
+            StringBuffer buffer, String fieldName, Object key) {
+        this.appendDetail(buffer, fieldName, key);
+        buffer.append(KEY_VALUE_SEPARATOR);
+    }
+
+    /**
+     * Appends the key and the value of a map entry.
+     */
+    private void appendEntry(
+            StringBuffer buffer, String fieldName, Object key, Object value) {
+
+        this.appendMapKey(buffer, fieldName, key);
+
+        if (value == null) {
+            this.appendNullText(buffer, fieldName);
+        } else {
+            this.appendDetail(buffer, fieldName, value);
+        }
+    }
+
+    /**
+     * Appends the entries of a map, separated from each other.
+     */
+    private final class EntryAppender implements BiConsumer<Object, Object> {
+
+        private final StringBuffer buffer;
+        private final String fieldName;
+        private final BufferDrain drain;
+
+        /**
+         * Number of the appended entries
+         */
+        private int count;
+
+        private EntryAppender(StringBuffer buffer, String fieldName) {
+            this.buffer = buffer;
+            this.fieldName = fieldName;
+            this.drain = BufferDrain.of(buffer);
+        }
+
+        @Override
+        public void accept(Object key, Object value) {
+            if (count++ > 0) {
+                buffer.append(MAP_ENTRIES_SEPARATOR);
+            }
+
+            appendEntry(buffer, fieldName, key, value);
+
+            if (drain != null) {
+                drain.drain();
+            }
+        }
+
+        /**
+         * Returns whether no more entries should be appended.
+         */
+        private boolean isFull() {
+            return count == maxElements || isExhausted(buffer);
+        }
+
+        /**
+         * Appends the elision marker in place of the remaining entries.
+         */
+        private void elide() {
+            if (count > 0) {
+                buffer.append(MAP_ENTRIES_SEPARATOR);
+            }
+            appendElidedEntries(buffer);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The elements are iterated directly, unless the collection
+     * is rendered in parallel.</p>
+     */
+    @Override
+    protected void appendDetail(
+            StringBuffer buffer, String fieldName, Collection<?> coll) {
+        this.appendClassName(buffer, coll);
+        this.appendIdentityHashCode(buffer, coll);
+
+        if (parallelThreshold != UNLIMITED
+                && this.isParallel(Math.min(coll.size(), maxElements))) {
+            this.appendInParallel(buffer, fieldName, coll);
+            return;
+        }
+
+        BufferDrain drain = BufferDrain.of(buffer);
+
+        buffer.append(this.getArrayStart());
+
+        int i = 0;
+        for (Object item : coll) {
+            if (i > 0) {
+                buffer.append(this.getArraySeparator());
+            }
+
+            if (i == maxElements || this.isExhausted(buffer)) {
+                this.appendElidedItem(buffer);
+                break;
+            }
+
+            this.appendItem(buffer, fieldName, item);
+
+            if (drain != null) {
+                drain.drain();
+            }
+            ++i;
+        }
+
+        buffer.append(this.getArrayEnd());
+    }
+
+    /**
+     * Appends the elements of a large collection, rendered in parallel.
+     * The elements to be shown are copied before anything is output.
+     */
+    private void appendInParallel(
+            StringBuffer buffer, String fieldName, Collection<?> coll) {
+
+        Object[] items = new Object[Math.min(coll.size(), maxElements)];
+        Iterator<?> iterator = coll.iterator();
+        int count = 0;
+        while (count < items.length && iterator.hasNext()) {
+            items[count++] = iterator.next();
+        }
+
+        buffer.append(this.getArrayStart());
+        this.appendInParallel(
+                buffer, coll, count, this.getArraySeparator(),
+                (chunk, i) -> this.appendItem(chunk, fieldName, items[i]));
+        if (iterator.hasNext()) {
+            if (count > 0) {
+                buffer.append(this.getArraySeparator());
+            }
+            this.appendElidedItem(buffer);
+        }
+        buffer.append(this.getArrayEnd());
+    }
+
+    /**
+     * Returns whether the given number of elements is to be rendered
+     * in parallel.
+     */
+    private boolean isParallel(int count) {
+        return count >= parallelThreshold
+                && maxLength == UNLIMITED
+                && !referenceVisited;
+    }
+
+    /**
+     * Renders the elements in chunks on the common fork-join pool, each
+     * into its own buffer, and appends the chunks in order. The calling
+     * thread renders the first chunk itself. The objects being rendered
+     * by the calling thread are handed over to the chunks, as well as
+     * the depth, so the chunks are rendered as in the calling thread.
+     *
+     * @param buffer    string buffer to write into
+     * @param container the collection or the map of the elements
+     * @param count     the number of elements
+     * @param separator the separator of the elements
+     * @param appender  appends the element at the given index
+     */
+    private void appendInParallel(
+            StringBuffer buffer,
+            Object container,
+            int count,
+            String separator,
+            ObjIntConsumer<StringBuffer> appender) {
+
+        Render render = this.render.get();
+        Set<Object> ancestors = render.ancestors();
+        ancestors.add(container);
+        int depth = render.depth;
+
+        int chunkSize = Math.max(1, (int) Math.ceil(
+                count / (ForkJoinPool.getCommonPoolParallelism() * 4.0)));
+        List<ForkJoinTask<StringBuffer>> chunks = new ArrayList<>();
+        for (int start = 0; start < count; start += chunkSize) {
+            int from = start;
+            int to = Math.min(count, start + chunkSize);
+            chunks.add(ForkJoinTask.adapt(() -> this.renderChunk(
+                    ancestors, depth, from, to, separator, appender)));
+        }
+
+        for (int i = chunks.size() - 1; i > 0; i--) {
+            chunks.get(i).fork();
+        }
+        if (!chunks.isEmpty()) {
+            chunks.get(0).invoke();
+        }
+        for (int i = chunks.size() - 1; i > 0; i--) {
+            chunks.get(i).join();
+        }
+
+        BufferDrain drain = BufferDrain.of(buffer);
+        for (int i = 0; i < chunks.size(); i++) {
+            if (i > 0) {
+                buffer.append(separator);
+            }
+            buffer.append(chunks.get(i).join());
+
+            if (drain != null) {
+                drain.drain();
+            }
+        }
+    }
+
+    /**
+     * Renders the elements from the given index to the other one,
+     * within the state of the rendering taken over from the forking thread.
+     */
+    private StringBuffer renderChunk(
+            Set<Object> ancestors,
+            int depth,
+            int from,
+            int to,
+            String separator,
+            ObjIntConsumer<StringBuffer> appender) {
+
+        Render render = this.render.get();
+        Set<Object> forked = render.forked;
+        int outerDepth = render.depth;
+        render.forked = ancestors;
+        render.depth = depth;
+        try {
+            StringBuffer chunk = new StringBuffer();
+            for (int i = from; i < to; i++) {
+                if (i > from) {
+                    chunk.append(separator);
+                }
+                appender.accept(chunk, i);
+            }
+            return chunk;
+        } finally {
+            render.forked = forked;
+            render.depth = outerDepth;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void appendDetail(
+            StringBuffer buffer, String fieldName, Object[] array) {
+
+        BufferDrain drain = BufferDrain.of(buffer);
+
+        buffer.append(this.getArrayStart());
+
+        for (int i = 0; i < array.length; ++i) {
+            if (i > 0) {
+                buffer.append(this.getArraySeparator());
+            }
+
+            if (i == maxArrayLength || this.isExhausted(buffer)) {
+                this.appendElidedItem(buffer);
+                break;
+            }
+
+            this.appendItem(buffer, fieldName, array[i]);
+
+            if (drain != null) {
+                drain.drain();
+            }
+        }
+
+        buffer.append(this.getArrayEnd());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The array is passed to the overload of its type, so that
+     * the elements of primitive arrays are not boxed.</p>
+     */
+    @Override
+    protected void reflectionAppendArrayDetail(
+            StringBuffer buffer, String fieldName, Object array) {
+
+        if (array instanceof Object[]) {
+            this.appendDetail(buffer, fieldName, (Object[]) array);
+        } else if (array instanceof int[]) {
+            this.appendDetail(buffer, fieldName, (int[]) array);
+        } else if (array instanceof long[]) {
+            this.appendDetail(buffer, fieldName, (long[]) array);
+        } else if (array instanceof double[]) {
+            this.appendDetail(buffer, fieldName, (double[]) array);
+        } else if (array instanceof byte[]) {
+            this.appendDetail(buffer, fieldName, (byte[]) array);
+        } else if (array instanceof char[]) {
+            this.appendDetail(buffer, fieldName, (char[]) array);
+        } else if (array instanceof boolean[]) {
+            this.appendDetail(buffer, fieldName, (boolean[]) array);
+        } else if (array instanceof float[]) {
+            this.appendDetail(buffer, fieldName, (float[]) array);
+        } else if (array instanceof short[]) {
+            this.appendDetail(buffer, fieldName, (short[]) array);
+        } else {
+            super.reflectionAppendArrayDetail(buffer, fieldName, array);
+        }
+    }
+
+    private void appendItem(StringBuffer buffer, String fieldName, Object item) {
+        if (item == null) {
+            this.appendNullText(buffer, fieldName);
+        } else {
+            this.appendInternal(
+                    buffer, fieldName, item, this.isArrayContentDetail());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void appendDetail(
+            StringBuffer buffer, String fieldName, long[] array) {
+
+        int stop = this.stopPosition(buffer);
+        buffer.append(this.getArrayStart());
+        for (int i = 0; i < array.length; ++i) {
+            if (i > 0) {
+                buffer.append(this.getArraySeparator());
+            }
+            if (i == maxArrayLength || buffer.length() >= stop) {
+                this.appendElidedItem(buffer);
+                break;
+            }
+            this.appendDetail(buffer, fieldName, array[i]);
+        }
+        buffer.append(this.getArrayEnd());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void appendDetail(
+            StringBuffer buffer, String fieldName, int[] array) {
+
+        int stop = this.stopPosition(buffer);
+        buffer.append(this.getArrayStart());
+        for (int i = 0; i < array.length; ++i) {
+            if (i > 0) {
+                buffer.append(this.getArraySeparator());
+            }
+            if (i == maxArrayLength || buffer.length() >= stop) {
+                this.appendElidedItem(buffer);
+                break;
+            }
+            this.appendDetail(buffer, fieldName, array[i]);
+        }
+        buffer.append(this.getArrayEnd());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void appendDetail(
+            StringBuffer buffer, String fieldName, short[] array) {
+
+        int stop = this.stopPosition(buffer);
+        buffer.append(this.getArrayStart());
+        for (int i = 0; i < array.length; ++i) {
+            if (i > 0) {
+                buffer.append(this.getArraySeparator());
+            }
+            if (i == maxArrayLength || buffer.length() >= stop) {
+                this.appendElidedItem(buffer);
+                break;
+            }
+            this.appendDetail(buffer, fieldName, array[i]);
+        }
+        buffer.append(this.getArrayEnd());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The content is written in the configured
+     * {@link ByteArrayFormat}.</p>
+     */
+    @Override
+    protected void appendDetail(
+            StringBuffer buffer, String fieldName, byte[] array) {
+
+        int stop = this.stopPosition(buffer);
+        buffer.append(this.getArrayStart());
+
+        if (byteArrayFormat == ByteArrayFormat.HEX) {
+            this.appendHex(buffer, array, stop);
+            buffer.append(this.getArrayEnd());
+            return;
+        }
+        if (byteArrayFormat == ByteArrayFormat.BASE64) {
+            this.appendBase64(buffer, array, stop);
+            buffer.append(this.getArrayEnd());
+            return;
+        }
+
+        for (int i = 0; i < array.length; ++i) {
+            if (i > 0) {
+                buffer.append(this.getArraySeparator());
+            }
+            if (i == maxArrayLength || buffer.length() >= stop) {
+                this.appendElidedItem(buffer);
+                break;
+            }
+            this.appendDetail(buffer, fieldName, array[i]);
+        }
+        buffer.append(this.getArrayEnd());
+    }
+
+    /**
+     * @return the format of the content of byte arrays
+     */
+    ByteArrayFormat getByteArrayFormat() {
+        return byteArrayFormat;
+    }
+
+    /**
+     * Appends two hexadecimal digits per byte.
+     */
+    void appendHex(StringBuffer buffer, byte[] array, int stop) {
+        int length = Math.min(array.length, maxArrayLength);
+        int i = 0;
+        for (; i < length && buffer.length() < stop; ++i) {
+            buffer.append(HEX_DIGITS[(array[i] >> 4) & 0xf])
+                    .append(HEX_DIGITS[array[i] & 0xf]);
+        }
+        if (i < array.length) {
+            this.appendElidedContent(buffer);
+        }
+    }
+
+    /**
+     * Appends the base64 encoding of the bytes, four digits
+     * per three bytes.
+     */
+    void appendBase64(StringBuffer buffer, byte[] array, int stop) {
+        int length = Math.min(array.length, maxArrayLength);
+        int i = 0;
+        for (; i < length && buffer.length() < stop; i += 3) {
+            int remaining = length - i;
+            int bits = (array[i] & 0xff) << 16
+                    | (remaining > 1 ? (array[i + 1] & 0xff) << 8 : 0)
+                    | (remaining > 2 ? array[i + 2] & 0xff : 0);
+
+            buffer.append(BASE64_DIGITS[(bits >>> 18) & 0x3f])
+                    .append(BASE64_DIGITS[(bits >>> 12) & 0x3f])
+                    .append(remaining > 1
+                            ? BASE64_DIGITS[(bits >>> 6) & 0x3f]
+                            : '=')
+                    .append(remaining > 2
+                            ? BASE64_DIGITS[bits & 0x3f]
+                            : '=');
+        }
+        if (Math.min(i, length) < array.length) {
+            this.appendElidedContent(buffer);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void appendDetail(
+            StringBuffer buffer, String fieldName, char[] array) {
+
+        int stop = this.stopPosition(buffer);
+        buffer.append(this.getArrayStart());
+        for (int i = 0; i < array.length; ++i) {
+            if (i > 0) {
+                buffer.append(this.getArraySeparator());
+            }
+            if (i == maxArrayLength || buffer.length() >= stop) {
+                this.appendElidedItem(buffer);
+                break;
+            }
+            this.appendDetail(buffer, fieldName, array[i]);
+        }
+        buffer.append(this.getArrayEnd());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void appendDetail(
+            StringBuffer buffer, String fieldName, double[] array) {
+
+        int stop = this.stopPosition(buffer);
+        buffer.append(this.getArrayStart());
+        for (int i = 0; i < array.length; ++i) {
+            if (i > 0) {
+                buffer.append(this.getArraySeparator());
+            }
+            if (i == maxArrayLength || buffer.length() >= stop) {
+                this.appendElidedItem(buffer);
+                break;
+            }
+            this.appendDetail(buffer, fieldName, array[i]);
+        }
+        buffer.append(this.getArrayEnd());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void appendDetail(
+            StringBuffer buffer, String fieldName, float[] array) {
+
+        int stop = this.stopPosition(buffer);
+        buffer.append(this.getArrayStart());
+        for (int i = 0; i < array.length; ++i) {
+            if (i > 0) {
+                buffer.append(this.getArraySeparator());
+            }
+            if (i == maxArrayLength || buffer.length() >= stop) {
+                this.appendElidedItem(buffer);
+                break;
+            }
+            this.appendDetail(buffer, fieldName, array[i]);
+        }
+        buffer.append(this.getArrayEnd());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void appendDetail(
+            StringBuffer buffer, String fieldName, boolean[] array) {
+
+        int stop = this.stopPosition(buffer);
+        buffer.append(this.getArrayStart());
+        for (int i = 0; i < array.length; ++i) {
+            if (i > 0) {
+                buffer.append(this.getArraySeparator());
+            }
+            if (i == maxArrayLength || buffer.length() >= stop) {
+                this.appendElidedItem(buffer);
+                break;
+            }
+            this.appendDetail(buffer, fieldName, array[i]);
+        }
+        buffer.append(this.getArrayEnd());
+    }
+
+    /**
+     * Append detail of an object entry
+     *
+     * @param buffer string buffer to write into
+     * @param fieldName name of the field
+     * @param value the object value
+     */
+    @Override
+    public void appendDetail(
+            StringBuffer buffer,
+            String fieldName,
+            Object value) {
+
+        if (this.accept(value.getClass())) {
+
+            this.appendNested(buffer, value);
+
+        } else if (value instanceof String
+                && (maxStringLength != UNLIMITED || maxLength != UNLIMITED)) {
+
+            this.appendString(buffer, (String) value);
+
+        } else {
+            super.appendDetail(buffer, fieldName, value);
+        }
+
+    }
+
+    /**
+     * Appends the string of the nested object, within the maximum depth
+     * and the remaining length of the output. The object is referenced
+     * instead, if it is too deep or it has already been visited.
+     */
+    private void appendNested(StringBuffer buffer, Object value) {
+        if (maxLength == UNLIMITED
+                && maxDepth == UNLIMITED
+                && !referenceVisited) {
+
+            buffer.append(delegate.apply(value, this));
+            return;
+        }
+
+        if (this.isExhausted(buffer)) {
+            this.appendElidedItem(buffer);
+            return;
+        }
+
+        Render render = this.render.get();
+        if (render.depth >= maxDepth
+                || (render.visited != null
+                        && render.visited.containsKey(value))) {
+
+            this.appendCyclicObject(buffer, null, value);
+            return;
+        }
+
+        long base = render.base;
+        if (maxLength != UNLIMITED) {
+            render.base = this.consumed(buffer);
+        }
+        render.depth++;
+        try {
+            buffer.append(this.build(value, () -> String.valueOf(
+                    delegate.apply(value, this))));
+        } finally {
+            render.depth--;
+            render.base = base;
+        }
+    }
+
+    /**
+     * Appends the string, truncated to the maximum string length
+     * and the remaining length of the output.
+     */
+    private void appendString(StringBuffer buffer, String value) {
+        int limit = this.truncatedLength(buffer, value);
+
+        if (value.length() > limit) {
+            buffer.append(value, 0, limit);
+            this.appendElidedContent(buffer);
+        } else {
+            buffer.append(value);
+        }
+    }
+
+    /**
+     * State of the rendering in a thread.
+     */
+    private static final class Render {
+
+        /**
+         * Length of the output of the enclosing objects
+         */
+        private long base;
+
+        /**
+         * Depth of the nested object being rendered
+         */
+        private int depth;
+
+        /**
+         * Whether an output is being built in the thread
+         */
+        private boolean building;
+
+        /**
+         * Objects visited within the output being built,
+         * if visited objects are referenced
+         */
+        private Map<Object, Object> visited;
+
+        /**
+         * Objects being rendered in the thread, with the number
+         * of their pending renderings, if collections are rendered
+         * in parallel
+         */
+        private final Map<Object, Integer> open = new IdentityHashMap<>();
+
+        /**
+         * Objects being rendered by the thread, which forked the chunk
+         * rendered in this thread
+         */
+        private Set<Object> forked;
+
+        private void open(Object object) {
+            open.merge(object, 1, Integer::sum);
+        }
+
+        private void close(Object object) {
+            open.computeIfPresent(
+                    object, (key, count) -> count == 1 ? null : count - 1);
+        }
+
+        /**
+         * Provides the objects being rendered, including the ones
+         * of the forking thread.
+         */
+        private Set<Object> ancestors() {
+            Set<Object> ancestors =
+                    Collections.newSetFromMap(new IdentityHashMap<>());
+            if (forked != null) {
+                ancestors.addAll(forked);
+            }
+            ancestors.addAll(open.keySet());
+            return ancestors;
+        }
     }
 }
@@ -0,0 +1,357 @@
+package com.srnjak.utils.tostring.builder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * <p>Optional metrics of the cost of rendering, per class of the rendered
+ * objects.</p>
+ *
+ * <p>When enabled, {@link ToStringByFieldsBuilder} and
+ * {@link ToStringByGettersBuilder} record the number of outputs, the time
+ * spent and the length of the output, the values reported as
+ * <code>&lt;N/A&gt;</code>, and the depth of the nested objects rendered,
+ * e.g. by {@link RecursiveStyle}. The lookups of the cached fields and
+ * properties are recorded per class declaring them. The time includes
+ * the rendering of the nested objects.</p>
+ *
+ * <p>The metrics are disabled by default, unless the system property
+ * {@link #METRICS_PROPERTY} is set to <code>true</code>. While disabled,
+ * they cost a single check per output. They are available through
+ * {@link #snapshot()}, and through JMX, once
+ * {@link #registerMBean()} is called.</p>
+ */
+public final class RenderMetrics {
+
+    /**
+     * System property enabling the metrics by default
+     */
+    public static final String METRICS_PROPERTY =
+            "com.srnjak.utils.tostring.metrics";
+
+    /**
+     * Name of the MBean providing the metrics
+     */
+    public static final String OBJECT_NAME =
+            "com.srnjak.utils.tostring:type=RenderMetrics";
+
+    /**
+     * Logger
+     */
+    private static final Logger log =
+            Logger.getLogger(RenderMetrics.class.getName());
+
+    /**
+     * Whether to record the metrics
+     */
+    private static volatile boolean enabled =
+            Boolean.getBoolean(METRICS_PROPERTY);
+
+    /**
+     * The recorded metrics
+     */
+    private static volatile Registry registry = new Registry();
+
+    /**
+     * Nesting of the outputs in the current thread
+     */
+    private static final ThreadLocal<Nesting> nesting =
+            ThreadLocal.withInitial(Nesting::new);
+
+    private RenderMetrics() {
+    }
+
+    /**
+     * Specifies whether to record the metrics.
+     *
+     * @param enabled whether to record the metrics
+     */
+    public static void setEnabled(boolean enabled) {
+        RenderMetrics.enabled = enabled;
+    }
+
+    /**
+     * Returns whether the metrics are recorded.
+     *
+     * @return true if the metrics are recorded
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Provides the metrics recorded so far, the most expensive
+     * classes first, by the total time of their outputs.
+     *
+     * @return the metrics of all recorded classes
+     */
+    public static List<ClassRenderStats> snapshot() {
+        List<ClassRenderStats> stats = new ArrayList<>();
+        for (Counters counters : registry.all) {
+            stats.add(counters.snapshot());
+        }
+        stats.sort(Comparator
+                .comparingLong(ClassRenderStats::getTotalTimeNanos)
+                .reversed());
+        return stats;
+    }
+
+    /**
+     * Discards all recorded metrics.
+     */
+    public static void reset() {
+        registry = new Registry();
+    }
+
+    /**
+     * Registers the MBean providing the metrics in the platform MBean
+     * server, under the name {@link #OBJECT_NAME}. It does nothing,
+     * if the MBean is already registered.
+     *
+     * @throws IllegalStateException if the MBean cannot be registered
+     */
+    public static void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new MBean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            log.fine(() -> OBJECT_NAME + " is already registered");
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Unregisters the MBean providing the metrics from the platform
+     * MBean server. It does nothing, if the MBean is not registered.
+     *
+     * @throws IllegalStateException if the MBean cannot be unregistered
+     */
+    public static void unregisterMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (InstanceNotFoundException e) {
+            log.fine(() -> OBJECT_NAME + " is not registered");
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Starts timing the output of the given object.
+     *
+     * @param object the object being output, may be <code>null</code>
+     * @return the timer to be stopped at the end of the output,
+     *         or <code>null</code> if the metrics are disabled
+     */
+    static Timer start(Object object) {
+        if (!enabled || object == null) {
+            return null;
+        }
+        return new Timer(registry.of(object.getClass()), nesting.get());
+    }
+
+    /**
+     * Records the value of the object, which was reported as
+     * not available.
+     *
+     * @param object the object being output
+     */
+    static void failed(Object object) {
+        if (enabled) {
+            registry.of(object.getClass()).failures.increment();
+        }
+    }
+
+    /**
+     * Records the lookup of the cached fields or properties
+     * of the given class.
+     *
+     * @param clazz the class declaring them
+     */
+    static void lookedUp(Class<?> clazz) {
+        if (enabled) {
+            registry.of(clazz).lookups.increment();
+        }
+    }
+
+    /**
+     * Records the fields or properties of the given class being resolved,
+     * as they were not cached.
+     *
+     * @param clazz the class declaring them
+     */
+    static void missed(Class<?> clazz) {
+        if (enabled) {
+            registry.of(clazz).misses.increment();
+        }
+    }
+
+    /**
+     * Timing of a single output.
+     */
+    static final class Timer {
+
+        private final Counters counters;
+        private final Nesting nesting;
+        private final long start;
+
+        /**
+         * The deepest level reached by the enclosing output so far
+         */
+        private final int outerDeepest;
+
+        private Timer(Counters counters, Nesting nesting) {
+            this.counters = counters;
+            this.nesting = nesting;
+            this.outerDeepest = nesting.deepest;
+            nesting.deepest = ++nesting.level;
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * Stops timing the output and records it.
+         *
+         * @param length the length of the output,
+         *               negative if the output failed
+         */
+        void stop(long length) {
+            long nanos = System.nanoTime() - start;
+            int depth = nesting.deepest - nesting.level;
+            nesting.level--;
+            nesting.deepest = Math.max(outerDeepest, nesting.deepest);
+
+            counters.renders.increment();
+            counters.nanos.add(nanos);
+            if (length > 0) {
+                counters.length.add(length);
+            }
+            counters.maxDepth.accumulateAndGet(depth, Math::max);
+        }
+    }
+
+    /**
+     * Levels of the nested outputs in a thread.
+     */
+    private static final class Nesting {
+
+        /**
+         * Level of the output in progress, 0 if there is none
+         */
+        private int level;
+
+        /**
+         * The deepest level reached within the output in progress
+         */
+        private int deepest;
+    }
+
+    /**
+     * Counters of all recorded classes.
+     */
+    private static final class Registry {
+
+        private final Queue<Counters> all = new ConcurrentLinkedQueue<>();
+
+        private final ClassValue<Counters> counters = new ClassValue<>() {
+            @Override
+            protected Counters computeValue(Class<?> type) {
+                return new Counters(type.getName());
+            }
+        };
+
+        /**
+         * Provides the counters of the given class, registering them
+         * once they are used. The counters keep the name of the class
+         * only, so they do not prevent the class from being unloaded.
+         */
+        private Counters of(Class<?> clazz) {
+            Counters result = counters.get(clazz);
+            if (!result.registered && result.register()) {
+                all.add(result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Counters of a single class.
+     */
+    private static final class Counters {
+
+        private final String className;
+        private final LongAdder renders = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder length = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder lookups = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final AtomicInteger maxDepth = new AtomicInteger();
+
+        private volatile boolean registered;
+
+        private Counters(String className) {
+            this.className = className;
+        }
+
+        private synchronized boolean register() {
+            if (registered) {
+                return false;
+            }
+            registered = true;
+            return true;
+        }
+
+        private ClassRenderStats snapshot() {
+            long missCount = misses.sum();
+            return new ClassRenderStats(
+                    className,
+                    renders.sum(),
+                    nanos.sum(),
+                    length.sum(),
+                    failures.sum(),
+                    maxDepth.get(),
+                    Math.max(0, lookups.sum() - missCount),
+                    missCount);
+        }
+    }
+
+    /**
+     * The MBean providing the metrics.
+     */
+    private static final class MBean implements RenderMetricsMXBean {
+
+        @Override
+        public List<ClassRenderStats> getClasses() {
+            return snapshot();
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return RenderMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            RenderMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public void reset() {
+            RenderMetrics.reset();
+        }
+    }
+}
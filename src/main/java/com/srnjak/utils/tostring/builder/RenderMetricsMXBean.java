@@ -0,0 +1,39 @@
+package com.srnjak.utils.tostring.builder;
+
+import java.util.List;
+
+/**
+ * <p>Management interface of {@link RenderMetrics}, registered under
+ * the name {@link RenderMetrics#OBJECT_NAME}.</p>
+ *
+ * @see RenderMetrics#registerMBean()
+ */
+public interface RenderMetricsMXBean {
+
+    /**
+     * Provides the metrics recorded so far, the most expensive
+     * classes first.
+     *
+     * @return the metrics of all recorded classes
+     */
+    List<ClassRenderStats> getClasses();
+
+    /**
+     * Returns whether the metrics are recorded.
+     *
+     * @return true if the metrics are recorded
+     */
+    boolean isEnabled();
+
+    /**
+     * Specifies whether to record the metrics.
+     *
+     * @param enabled whether to record the metrics
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Discards all recorded metrics.
+     */
+    void reset();
+}
@@ -0,0 +1,93 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * <p>Learns the length of the output per class, to presize the buffers
+ * of later outputs.</p>
+ *
+ * <p>The length is an exponentially smoothed average, so the capacity
+ * follows a changing shape of the objects, while it is not affected much
+ * by a single unusual output. Concurrent updates may overwrite each other,
+ * which only affects the initial capacity of a later buffer.</p>
+ */
+final class SizeHints {
+
+    /**
+     * Initial capacity of a buffer, if the class was not rendered yet.
+     * It is the same as the default of <code>ToStringBuilder</code>.
+     */
+    static final int DEFAULT_CAPACITY = 512;
+
+    /**
+     * Weight of the previous average, as a power of two.
+     * The latest length contributes a quarter to the average.
+     */
+    private static final int SMOOTHING_SHIFT = 2;
+
+    private final ClassValue<Hint> hints = new ClassValue<Hint>() {
+        @Override
+        protected Hint computeValue(Class<?> type) {
+            return new Hint();
+        }
+    };
+
+    /**
+     * Provides the hints of the given style. {@link RecursiveStyle} learns
+     * the lengths of its own outputs, other styles share the given hints.
+     *
+     * @param style    the style of the output, may be <code>null</code>
+     * @param fallback the hints of other styles
+     * @return the hints
+     */
+    static SizeHints of(ToStringStyle style, SizeHints fallback) {
+        return style instanceof RecursiveStyle
+                ? ((RecursiveStyle) style).sizeHints()
+                : fallback;
+    }
+
+    /**
+     * Creates a buffer presized for the output of the given class.
+     *
+     * @param type the class of the object to be output
+     * @return the new buffer
+     */
+    StringBuffer newBuffer(Class<?> type) {
+        return new StringBuffer(this.capacity(type));
+    }
+
+    /**
+     * Returns the capacity expected to hold the output of the given class.
+     *
+     * @param type the class of the object to be output
+     * @return the capacity
+     */
+    int capacity(Class<?> type) {
+        int average = hints.get(type).average;
+        if (average == 0) {
+            return DEFAULT_CAPACITY;
+        }
+        return average + (average >> 3) + 16;
+    }
+
+    /**
+     * Records the length of an output of the given class.
+     *
+     * @param type   the class of the object which was output
+     * @param length the length of the output
+     */
+    void record(Class<?> type, int length) {
+        Hint hint = hints.get(type);
+        int average = hint.average;
+        hint.average = average == 0
+                ? length
+                : average + ((length - average) >> SMOOTHING_SHIFT);
+    }
+
+    /**
+     * Average length of the outputs of a class
+     */
+    private static final class Hint {
+        private int average;
+    }
+}
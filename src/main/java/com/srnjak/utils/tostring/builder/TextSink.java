@@ -0,0 +1,150 @@
+package com.srnjak.utils.tostring.builder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * <p>Unsynchronized output of {@link ToStringRenderer}.</p>
+ *
+ * <p>A <code>StringBuilder</code> is written directly. Any other
+ * <code>Appendable</code> is written through its interface, with
+ * <code>IOException</code> rethrown as {@link Failure}.</p>
+ */
+abstract class TextSink {
+
+    /**
+     * Creates the sink writing into the given appendable.
+     *
+     * @param appendable the appendable to write into
+     * @return the sink
+     */
+    static TextSink of(Appendable appendable) {
+        if (appendable instanceof StringBuilder) {
+            return new StringBuilderSink((StringBuilder) appendable);
+        }
+        return new AppendableSink(appendable);
+    }
+
+    abstract TextSink append(CharSequence value);
+
+    abstract TextSink append(char value);
+
+    TextSink append(int value) {
+        return append(String.valueOf(value));
+    }
+
+    TextSink append(long value) {
+        return append(String.valueOf(value));
+    }
+
+    TextSink append(float value) {
+        return append(String.valueOf(value));
+    }
+
+    TextSink append(double value) {
+        return append(String.valueOf(value));
+    }
+
+    TextSink append(boolean value) {
+        return append(String.valueOf(value));
+    }
+
+    /**
+     * Sink writing directly into a <code>StringBuilder</code>.
+     */
+    private static final class StringBuilderSink extends TextSink {
+
+        private final StringBuilder builder;
+
+        private StringBuilderSink(StringBuilder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        TextSink append(CharSequence value) {
+            builder.append(value);
+            return this;
+        }
+
+        @Override
+        TextSink append(char value) {
+            builder.append(value);
+            return this;
+        }
+
+        @Override
+        TextSink append(int value) {
+            builder.append(value);
+            return this;
+        }
+
+        @Override
+        TextSink append(long value) {
+            builder.append(value);
+            return this;
+        }
+
+        @Override
+        TextSink append(float value) {
+            builder.append(value);
+            return this;
+        }
+
+        @Override
+        TextSink append(double value) {
+            builder.append(value);
+            return this;
+        }
+
+        @Override
+        TextSink append(boolean value) {
+            builder.append(value);
+            return this;
+        }
+    }
+
+    /**
+     * Sink writing into any <code>Appendable</code>.
+     */
+    private static final class AppendableSink extends TextSink {
+
+        private final Appendable appendable;
+
+        private AppendableSink(Appendable appendable) {
+            this.appendable = appendable;
+        }
+
+        @Override
+        TextSink append(CharSequence value) {
+            try {
+                appendable.append(value);
+            } catch (IOException e) {
+                throw new Failure(e);
+            }
+            return this;
+        }
+
+        @Override
+        TextSink append(char value) {
+            try {
+                appendable.append(value);
+            } catch (IOException e) {
+                throw new Failure(e);
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Failure of writing into the appendable. The renderer propagates it,
+     * instead of reporting it as an unavailable value.
+     */
+    static final class Failure extends UncheckedIOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private Failure(IOException cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.srnjak.utils.tostring.builder;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * <p>Immutable style of the output of {@link ToStringRenderer}.</p>
+ *
+ * <p>It has the same settings as Apache's
+ * {@link org.apache.commons.lang3.builder.ToStringStyle}, and the predefined
+ * styles produce the same output as their counterparts. Unlike
+ * <code>ToStringStyle</code>, it never writes into a
+ * <code>StringBuffer</code>.</p>
+ *
+ * <p>If any objects are accepted in recursion, the style is recursive and
+ * formats collections, maps and accepted objects the same way as
+ * {@link RecursiveStyle}.</p>
+ */
+public final class TextStyle {
+
+    /**
+     * The default style, e.g. <code>Person@182f0db[name=John,age=33]</code>.
+     *
+     * @see org.apache.commons.lang3.builder.ToStringStyle#DEFAULT_STYLE
+     */
+    public static final TextStyle DEFAULT_STYLE = builder().build();
+
+    /**
+     * The multi line style.
+     *
+     * @see org.apache.commons.lang3.builder.ToStringStyle#MULTI_LINE_STYLE
+     */
+    public static final TextStyle MULTI_LINE_STYLE = builder()
+            .contentStart("[")
+            .fieldSeparator(System.lineSeparator() + "  ")
+            .fieldSeparatorAtStart(true)
+            .contentEnd(System.lineSeparator() + "]")
+            .build();
+
+    /**
+     * The style without field names,
+     * e.g. <code>Person@182f0db[John,33]</code>.
+     *
+     * @see org.apache.commons.lang3.builder.ToStringStyle#NO_FIELD_NAMES_STYLE
+     */
+    public static final TextStyle NO_FIELD_NAMES_STYLE = builder()
+            .useFieldNames(false)
+            .build();
+
+    /**
+     * The style with short class name and without identity hash code,
+     * e.g. <code>Person[name=John,age=33]</code>.
+     *
+     * @see org.apache.commons.lang3.builder.ToStringStyle#SHORT_PREFIX_STYLE
+     */
+    public static final TextStyle SHORT_PREFIX_STYLE = builder()
+            .useShortClassName(true)
+            .useIdentityHashCode(false)
+            .build();
+
+    /**
+     * The simple style, e.g. <code>John,33</code>.
+     *
+     * @see org.apache.commons.lang3.builder.ToStringStyle#SIMPLE_STYLE
+     */
+    public static final TextStyle SIMPLE_STYLE = builder()
+            .useClassName(false)
+            .useIdentityHashCode(false)
+            .useFieldNames(false)
+            .contentStart("")
+            .contentEnd("")
+            .build();
+
+    /**
+     * The style without class name, e.g. <code>[name=John,age=33]</code>.
+     *
+     * @see org.apache.commons.lang3.builder.ToStringStyle#NO_CLASS_NAME_STYLE
+     */
+    public static final TextStyle NO_CLASS_NAME_STYLE = builder()
+            .useClassName(false)
+            .useIdentityHashCode(false)
+            .build();
+
+    /**
+     * Builder for {@link TextStyle}.
+     */
+    public static class Builder {
+
+        private boolean useClassName = true;
+        private boolean useShortClassName = false;
+        private boolean useIdentityHashCode = true;
+        private boolean useFieldNames = true;
+        private String contentStart = "[";
+        private String contentEnd = "]";
+        private String fieldNameValueSeparator = "=";
+        private String fieldSeparator = ",";
+        private boolean fieldSeparatorAtStart = false;
+        private boolean fieldSeparatorAtEnd = false;
+        private String nullText = "<null>";
+        private String arrayStart = "{";
+        private String arraySeparator = ",";
+        private String arrayEnd = "}";
+
+        private boolean recursive = false;
+        private Class<?>[] annotations = new Class<?>[]{};
+        private Class<?>[] classes = new Class<?>[]{};
+        private String[] packages = new String[]{};
+
+        /**
+         * Specifies whether to output the class name.
+         *
+         * @param useClassName whether to output the class name
+         * @return this builder
+         */
+        public Builder useClassName(boolean useClassName) {
+            this.useClassName = useClassName;
+            return this;
+        }
+
+        /**
+         * Specifies whether to output the short class name,
+         * without the package.
+         *
+         * @param useShortClassName whether to output the short class name
+         * @return this builder
+         */
+        public Builder useShortClassName(boolean useShortClassName) {
+            this.useShortClassName = useShortClassName;
+            return this;
+        }
+
+        /**
+         * Specifies whether to output the identity hash code.
+         *
+         * @param useIdentityHashCode whether to output the identity hash code
+         * @return this builder
+         */
+        public Builder useIdentityHashCode(boolean useIdentityHashCode) {
+            this.useIdentityHashCode = useIdentityHashCode;
+            return this;
+        }
+
+        /**
+         * Specifies whether to output the field names.
+         *
+         * @param useFieldNames whether to output the field names
+         * @return this builder
+         */
+        public Builder useFieldNames(boolean useFieldNames) {
+            this.useFieldNames = useFieldNames;
+            return this;
+        }
+
+        /**
+         * Specifies the content start text.
+         *
+         * @param contentStart the content start text
+         * @return this builder
+         */
+        public Builder contentStart(String contentStart) {
+            this.contentStart = nullToEmpty(contentStart);
+            return this;
+        }
+
+        /**
+         * Specifies the content end text.
+         *
+         * @param contentEnd the content end text
+         * @return this builder
+         */
+        public Builder contentEnd(String contentEnd) {
+            this.contentEnd = nullToEmpty(contentEnd);
+            return this;
+        }
+
+        /**
+         * Specifies the text between the field name and the value.
+         *
+         * @param fieldNameValueSeparator the separator text
+         * @return this builder
+         */
+        public Builder fieldNameValueSeparator(String fieldNameValueSeparator) {
+            this.fieldNameValueSeparator = nullToEmpty(fieldNameValueSeparator);
+            return this;
+        }
+
+        /**
+         * Specifies the text between the fields.
+         *
+         * @param fieldSeparator the separator text
+         * @return this builder
+         */
+        public Builder fieldSeparator(String fieldSeparator) {
+            this.fieldSeparator = nullToEmpty(fieldSeparator);
+            return this;
+        }
+
+        /**
+         * Specifies whether to output the field separator
+         * before the first field.
+         *
+         * @param fieldSeparatorAtStart whether to output the separator
+         * @return this builder
+         */
+        public Builder fieldSeparatorAtStart(boolean fieldSeparatorAtStart) {
+            this.fieldSeparatorAtStart = fieldSeparatorAtStart;
+            return this;
+        }
+
+        /**
+         * Specifies whether to output the field separator
+         * after the last field.
+         *
+         * @param fieldSeparatorAtEnd whether to output the separator
+         * @return this builder
+         */
+        public Builder fieldSeparatorAtEnd(boolean fieldSeparatorAtEnd) {
+            this.fieldSeparatorAtEnd = fieldSeparatorAtEnd;
+            return this;
+        }
+
+        /**
+         * Specifies the text to output for <code>null</code>.
+         *
+         * @param nullText the text for <code>null</code>
+         * @return this builder
+         */
+        public Builder nullText(String nullText) {
+            this.nullText = nullToEmpty(nullText);
+            return this;
+        }
+
+        /**
+         * Specifies the array start text.
+         *
+         * @param arrayStart the array start text
+         * @return this builder
+         */
+        public Builder arrayStart(String arrayStart) {
+            this.arrayStart = nullToEmpty(arrayStart);
+            return this;
+        }
+
+        /**
+         * Specifies the text between the array elements.
+         *
+         * @param arraySeparator the separator text
+         * @return this builder
+         */
+        public Builder arraySeparator(String arraySeparator) {
+            this.arraySeparator = nullToEmpty(arraySeparator);
+            return this;
+        }
+
+        /**
+         * Specifies the array end text.
+         *
+         * @param arrayEnd the array end text
+         * @return this builder
+         */
+        public Builder arrayEnd(String arrayEnd) {
+            this.arrayEnd = nullToEmpty(arrayEnd);
+            return this;
+        }
+
+        /**
+         * Specifies annotations to be accepted in recursion.
+         *
+         * @param annotations If object type declares any annotation
+         *                    from the array, the object will be accepted
+         *                    in recursion.
+         * @return this builder
+         * @see RecursiveStyle.Builder#acceptAnnotations(Class[])
+         */
+        public Builder acceptAnnotations(Class<?>... annotations) {
+            this.annotations = annotations;
+            this.recursive = true;
+            return this;
+        }
+
+        /**
+         * Specifies classes to be accepted in recursion.
+         *
+         * @param classes Classes of object to be accepted in recursion.
+         * @return this builder
+         * @see RecursiveStyle.Builder#acceptClasses(Class[])
+         */
+        public Builder acceptClasses(Class<?>... classes) {
+            this.classes = classes;
+            this.recursive = true;
+            return this;
+        }
+
+        /**
+         * Specifies package prefixes to be accepted in recursion.
+         *
+         * @param packages If object type is part of package or subpackage from
+         *                 the array, the object will be accepted in recursion.
+         * @return this builder
+         * @see RecursiveStyle.Builder#acceptPackages(String...)
+         */
+        public Builder acceptPackages(String... packages) {
+            this.packages = packages;
+            this.recursive = true;
+            return this;
+        }
+
+        /**
+         * Builds the {@link TextStyle}.
+         *
+         * @return The {@link TextStyle} object.
+         */
+        public TextStyle build() {
+            return new TextStyle(this);
+        }
+
+        private static String nullToEmpty(String value) {
+            return value == null ? "" : value;
+        }
+    }
+
+    /**
+     * Provides builder for this class.
+     *
+     * @return The builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final Builder settings;
+
+    final boolean useClassName;
+    final boolean useShortClassName;
+    final boolean useIdentityHashCode;
+    final boolean useFieldNames;
+    final String contentStart;
+    final String contentEnd;
+    final String fieldNameValueSeparator;
+    final String fieldSeparator;
+    final boolean fieldSeparatorAtStart;
+    final boolean fieldSeparatorAtEnd;
+    final String nullText;
+    final String arrayStart;
+    final String arraySeparator;
+    final String arrayEnd;
+
+    /**
+     * Acceptance in recursion, <code>null</code> if not recursive
+     */
+    final ClassAcceptance acceptance;
+
+    @SuppressWarnings("unchecked")
+    private TextStyle(Builder builder) {
+        this.settings = copy(builder);
+
+        this.useClassName = builder.useClassName;
+        this.useShortClassName = builder.useShortClassName;
+        this.useIdentityHashCode = builder.useIdentityHashCode;
+        this.useFieldNames = builder.useFieldNames;
+        this.contentStart = builder.contentStart;
+        this.contentEnd = builder.contentEnd;
+        this.fieldNameValueSeparator = builder.fieldNameValueSeparator;
+        this.fieldSeparator = builder.fieldSeparator;
+        this.fieldSeparatorAtStart = builder.fieldSeparatorAtStart;
+        this.fieldSeparatorAtEnd = builder.fieldSeparatorAtEnd;
+        this.nullText = builder.nullText;
+        this.arrayStart = builder.arrayStart;
+        this.arraySeparator = builder.arraySeparator;
+        this.arrayEnd = builder.arrayEnd;
+
+        this.acceptance = builder.recursive
+                ? new ClassAcceptance(
+                        (Class<? extends Annotation>[]) builder.annotations,
+                        builder.classes,
+                        builder.packages)
+                : null;
+    }
+
+    /**
+     * Provides builder initialized with the settings of this style.
+     *
+     * @return The builder
+     */
+    public Builder toBuilder() {
+        return copy(settings);
+    }
+
+    /**
+     * Returns whether or not this style is recursive.
+     *
+     * @return true if objects may be accepted in recursion
+     */
+    public boolean isRecursive() {
+        return acceptance != null;
+    }
+
+    private static Builder copy(Builder source) {
+        Builder builder = new Builder();
+        builder.useClassName = source.useClassName;
+        builder.useShortClassName = source.useShortClassName;
+        builder.useIdentityHashCode = source.useIdentityHashCode;
+        builder.useFieldNames = source.useFieldNames;
+        builder.contentStart = source.contentStart;
+        builder.contentEnd = source.contentEnd;
+        builder.fieldNameValueSeparator = source.fieldNameValueSeparator;
+        builder.fieldSeparator = source.fieldSeparator;
+        builder.fieldSeparatorAtStart = source.fieldSeparatorAtStart;
+        builder.fieldSeparatorAtEnd = source.fieldSeparatorAtEnd;
+        builder.nullText = source.nullText;
+        builder.arrayStart = source.arrayStart;
+        builder.arraySeparator = source.arraySeparator;
+        builder.arrayEnd = source.arrayEnd;
+        builder.recursive = source.recursive;
+        builder.annotations = source.annotations.clone();
+        builder.classes = source.classes.clone();
+        builder.packages = source.packages.clone();
+        return builder;
+    }
+}
@@ -5,9 +5,11 @@ import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
-import java.lang.reflect.AccessibleObject;
+import java.io.IOException;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.logging.Level;
@@ -23,12 +25,70 @@ import java.util.logging.Logger;
  */
 public class ToStringByFieldsBuilder extends ReflectionToStringBuilder {
 
+    /**
+     * System property enabling the pooled buffers by default
+     */
+    public static final String POOLED_BUFFERS_PROPERTY =
+            "com.srnjak.utils.tostring.pooledBuffers";
+
     /**
      * Logger
      */
     private static final Logger log =
             Logger.getLogger(ToStringByFieldsBuilder.class.getName());
 
+    /**
+     * Whether the static methods reuse the buffer of the thread
+     */
+    private static volatile boolean pooledBuffers =
+            Boolean.getBoolean(POOLED_BUFFERS_PROPERTY);
+
+    /**
+     * Whether the builder class overrides {@link #accept(Field)}
+     * or {@link #getValue(Field)}
+     */
+    private static final ClassValue<Boolean> hooked = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> c = type;
+                    c != ToStringByFieldsBuilder.class;
+                    c = c.getSuperclass()) {
+                for (Method method : c.getDeclaredMethods()) {
+                    if ((method.getName().equals("accept")
+                            || method.getName().equals("getValue"))
+                            && Arrays.equals(
+                                    method.getParameterTypes(),
+                                    new Class<?>[] {Field.class})) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Size hints of the outputs in styles other than {@link RecursiveStyle}
+     */
+    private static final SizeHints sizeHints = new SizeHints();
+
+    /**
+     * Size hints learning the length of the output,
+     * <code>null</code> if the buffer was given
+     */
+    private final SizeHints hints;
+
+    /**
+     * Values captured beforehand, which are appended instead of the
+     * current values, <code>null</code> if the values are read directly
+     */
+    private FieldSnapshot snapshot;
+
+    /**
+     * Whether the omitted fields have been replaced by the elision marker
+     */
+    private boolean elided;
+
     /**
      * <p>
      * Builds a <code>toString</code> value using
@@ -242,6 +302,19 @@ public class ToStringByFieldsBuilder extends ReflectionToStringBuilder {
             final boolean outputStatics,
             final Class<? super T> reflectUpToClass) {
 
+        if (pooledBuffers && object != null) {
+            return BufferPool.render(
+                    hintsOf(style),
+                    object.getClass(),
+                    buffer -> new ToStringByFieldsBuilder(
+                            object,
+                            style,
+                            buffer,
+                            reflectUpToClass,
+                            outputTransients,
+                            outputStatics));
+        }
+
         return new ToStringByFieldsBuilder(
                 object,
                 style,
@@ -252,6 +325,110 @@ public class ToStringByFieldsBuilder extends ReflectionToStringBuilder {
                 .toString();
     }
 
+    /**
+     * <p>
+     * Appends a <code>toString</code> value built through reflection
+     * to the given <code>Appendable</code>.
+     * </p>
+     *
+     * <p>
+     * The value is streamed while it is being built. The built content
+     * is written into the appendable in chunks, between the fields,
+     * and between the elements of the arrays, collections and maps
+     * rendered by {@link RecursiveStyle}. The nested objects, which
+     * {@link RecursiveStyle} renders by their own builders, are still
+     * built as a whole, before being streamed.
+     * </p>
+     *
+     * <p>
+     * Transient members will be not be included, as they are likely derived.
+     * Static fields will not be included. Superclass fields will be appended.
+     * </p>
+     *
+     * <p>
+     * If the style is <code>null</code>, the default
+     * <code>ToStringStyle</code> is used.
+     * </p>
+     *
+     * @param <A>        the type of the appendable
+     * @param appendable the <code>Appendable</code> to write into,
+     *                   e.g. <code>Writer</code> or <code>StringBuilder</code>
+     * @param object     the Object to be output
+     * @param style      the style of the <code>toString</code> to create,
+     *                   may be <code>null</code>
+     * @return the given appendable
+     * @throws IOException if writing into the appendable fails
+     * @throws IllegalArgumentException if the Object is <code>null</code>
+     * @see ToStringExclude
+     * @see org.apache.commons.lang3.builder.ToStringExclude
+     */
+    public static <A extends Appendable> A appendTo(
+            final A appendable,
+            final Object object,
+            final ToStringStyle style) throws IOException {
+
+        return BufferDrain.stream(
+                appendable, new ToStringByFieldsBuilder(object, style));
+    }
+
+    /**
+     * <p>
+     * Provides a <code>toString</code> value built through reflection,
+     * which is built only when it is needed for the first time,
+     * e.g. when a log statement is actually output.
+     * </p>
+     *
+     * <p>
+     * The value is the same as of {@link #toString(Object, ToStringStyle)}.
+     * Until it is needed, no reflection is performed.
+     * </p>
+     *
+     * @param object the Object to be output
+     * @param style  the style of the <code>toString</code> to create,
+     *               may be <code>null</code>
+     * @return the lazily built String result
+     * @throws IllegalArgumentException if the Object is <code>null</code>
+     * @see LazyToString
+     */
+    public static LazyToString lazy(
+            final Object object, final ToStringStyle style) {
+        return new LazyToString(
+                object, style, ToStringByFieldsBuilder::toString);
+    }
+
+    /**
+     * <p>
+     * Captures the values of the fields right away, and provides
+     * a <code>toString</code> value built from them only when it is needed
+     * for the first time, possibly in another thread.
+     * </p>
+     *
+     * <p>
+     * It is meant for asynchronous logging. The capture is cheap and
+     * shallow: the values of primitive fields are copied without boxing,
+     * while the referenced objects are held and formatted only later.
+     * The arrays referenced by the fields are copied, but not their
+     * elements. The fields are selected as by
+     * {@link #toString(Object, ToStringStyle)}.
+     * </p>
+     *
+     * @param object the Object to be output
+     * @param style  the style of the <code>toString</code> to create,
+     *               may be <code>null</code>
+     * @return the String result, built later from the captured values
+     * @throws IllegalArgumentException if the Object is <code>null</code>
+     * @see LazyToString
+     */
+    public static LazyToString snapshot(
+            final Object object, final ToStringStyle style) {
+
+        return new LazyToString(
+                FieldSnapshot.capture(object), style, (captured, valueStyle) ->
+                        new ToStringByFieldsBuilder(
+                                (FieldSnapshot) captured, valueStyle)
+                                .toString());
+    }
+
     /**
      * Builds a String for a toString method excluding the given field names.
      *
@@ -300,6 +477,14 @@ public class ToStringByFieldsBuilder extends ReflectionToStringBuilder {
             final Object object,
             final String... excludeFieldNames) {
 
+        if (pooledBuffers && object != null) {
+            return BufferPool.render(
+                    hintsOf(null),
+                    object.getClass(),
+                    buffer -> new ToStringByFieldsBuilder(object, null, buffer)
+                            .setExcludeFieldNames(excludeFieldNames));
+        }
+
         return new ToStringByFieldsBuilder(object)
                 .setExcludeFieldNames(excludeFieldNames).toString();
     }
@@ -320,7 +505,8 @@ public class ToStringByFieldsBuilder extends ReflectionToStringBuilder {
      *              <code>null</code>
      */
     public ToStringByFieldsBuilder(Object object) {
-        super(object);
+        super(object, null, presize(object, null, null));
+        this.hints = hintsOf(this.getStyle());
     }
 
     /**
@@ -340,7 +526,8 @@ public class ToStringByFieldsBuilder extends ReflectionToStringBuilder {
      *              <code>null</code>
      */
     public ToStringByFieldsBuilder(Object object, ToStringStyle style) {
-        super(object, style);
+        super(object, style, presize(object, style, null));
+        this.hints = hintsOf(this.getStyle());
     }
 
     /**
@@ -353,7 +540,8 @@ public class ToStringByFieldsBuilder extends ReflectionToStringBuilder {
      * </p>
      *
      * <p>
-     * If the buffer is <code>null</code>, a new one is created.
+     * If the buffer is <code>null</code>, a new one is created, presized
+     * from the length of the previous outputs for the class of the object.
      * </p>
      *
      * @param object the Object to build a <code>toString</code> for
@@ -366,7 +554,8 @@ public class ToStringByFieldsBuilder extends ReflectionToStringBuilder {
      */
     public ToStringByFieldsBuilder(
             Object object, ToStringStyle style, StringBuffer buffer) {
-        super(object, style, buffer);
+        super(object, style, presize(object, style, buffer));
+        this.hints = buffer == null ? hintsOf(this.getStyle()) : null;
     }
 
     /**
@@ -394,10 +583,64 @@ public class ToStringByFieldsBuilder extends ReflectionToStringBuilder {
         super(
                 object,
                 style,
-                buffer,
+                presize(object, style, buffer),
                 reflectUpToClass,
                 outputTransients,
                 outputStatics);
+        this.hints = buffer == null ? hintsOf(this.getStyle()) : null;
+    }
+
+    /**
+     * Constructor appending the values captured beforehand.
+     *
+     * @param snapshot the captured values
+     * @param style    the style of the <code>toString</code> to create,
+     *                 may be <code>null</code>
+     */
+    ToStringByFieldsBuilder(FieldSnapshot snapshot, ToStringStyle style) {
+        this(snapshot.getObject(), style);
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * <p>
+     * Clears the cached fields of all classes.
+     * </p>
+     *
+     * <p>
+     * The fields of a class are read and filtered once and reused for all
+     * later invocations with the same options. The cache does not prevent
+     * classes from being unloaded, but it may be cleared explicitly,
+     * e.g. on redeploy.
+     * </p>
+     */
+    public static void clearCache() {
+        FieldMetadata.clear();
+        FieldSnapshot.clear();
+    }
+
+    /**
+     * <p>
+     * Specifies whether the static <code>toString</code> and
+     * <code>toStringExclude</code> methods reuse a buffer kept by the
+     * current thread, instead of creating a new one on each invocation.
+     * </p>
+     *
+     * <p>
+     * The buffer is presized from the length of the previous output for
+     * the same class, so mostly only the resulting string is allocated.
+     * A buffer grown beyond 65536 characters is not kept.
+     * </p>
+     *
+     * <p>
+     * It is disabled by default, unless the system property
+     * {@value #POOLED_BUFFERS_PROPERTY} is set to <code>true</code>.
+     * </p>
+     *
+     * @param enabled whether to reuse the buffers
+     */
+    public static void usePooledBuffers(boolean enabled) {
+        pooledBuffers = enabled;
     }
 
     /**
@@ -411,31 +654,188 @@ public class ToStringByFieldsBuilder extends ReflectionToStringBuilder {
 
     /**
      * {@inheritDoc}
+     *
+     * <p>The fields are read once per class. If a subclass overrides
+     * {@link #accept(Field)} or {@link #getValue(Field)}, all the cached
+     * fields are passed through both of them.</p>
      */
     @Override
     protected void appendFieldsIn(Class<?> clazz) {
         if (clazz.isArray()) {
-            this.reflectionAppendArray(this.getObject());
+            this.reflectionAppendArray(this.snapshot != null
+                    ? this.snapshot.getArray()
+                    : this.getObject());
             return;
         }
 
-        Field[] fields = clazz.getDeclaredFields();
-        AccessibleObject.setAccessible(fields, true);
-        for (Field field : fields) {
-            String fieldName = field.getName();
-            if (this.accept(field)) {
-                try {
-                    Object fieldValue = this.getValue(field);
-                    this.append(fieldName, fieldValue);
-                } catch (IllegalAccessException e) {
-                    throw new RuntimeException(e);
-                } catch (RuntimeException e) {
-                    log.finer(e::toString);
-                    log.finest(() -> ExceptionUtils.getStackTrace(e));
-
-                    this.append(null, "<N/A>");
-                }
+        BufferDrain drain = BufferDrain.of(this.getStringBuffer());
+        RecursiveStyle budget = RecursiveStyle.budgetOf(this.getStyle());
+
+        if (this.snapshot != null) {
+            this.appendSnapshotIn(clazz, drain, budget);
+            return;
+        }
+
+        boolean hooks = hooked.get(this.getClass());
+
+        for (FieldMetadata.FieldProperty property : hooks
+                ? FieldMetadata.of(clazz).all()
+                : FieldMetadata.of(clazz).select(
+                        this.isAppendTransients(),
+                        this.isAppendStatics(),
+                        this.excludeFieldNames)) {
+
+            if (hooks && !this.accept(property.getField())) {
+                continue;
+            }
+
+            if (drain != null) {
+                drain.drain();
+            }
+
+            if (budget != null
+                    && budget.isExhausted(this.getStringBuffer())) {
+                this.elide(budget);
+                return;
+            }
+
+            int mark = this.getStringBuffer().length();
+            long drained = drain == null ? 0 : drain.drained();
+            try {
+                Object fieldValue = hooks
+                        ? this.getValue(property.getField())
+                        : property.getAccessor().get(this.getObject());
+                this.append(property.getName(), fieldValue);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            } catch (BufferDrain.Failure e) {
+                throw e;
+            } catch (RuntimeException e) {
+                log.finer(e::toString);
+                log.finest(() -> ExceptionUtils.getStackTrace(e));
+                RenderMetrics.failed(this.getObject());
+
+                this.discardFrom(mark, drain, drained);
+                this.append(
+                        JsonStyle.unavailableFieldName(
+                                this.getStyle(), property.getName()),
+                        "<N/A>");
+            }
+        }
+    }
+
+    /**
+     * Appends the captured values of the fields declared by the given class.
+     *
+     * @param clazz  the class declaring the fields
+     * @param drain  the drain of the streamed buffer, may be <code>null</code>
+     * @param budget the style limiting the length of the output,
+     *               may be <code>null</code>
+     */
+    private void appendSnapshotIn(
+            Class<?> clazz, BufferDrain drain, RecursiveStyle budget) {
+
+        for (int i = this.snapshot.start(clazz), end = this.snapshot.end(clazz);
+                i < end;
+                i++) {
+
+            if (drain != null) {
+                drain.drain();
+            }
+
+            if (budget != null
+                    && budget.isExhausted(this.getStringBuffer())) {
+                this.elide(budget);
+                return;
+            }
+
+            this.snapshot.appendTo(this, i);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The length of the output is learned to presize the buffers
+     * of later outputs for the same class.</p>
+     */
+    @Override
+    public String toString() {
+        RenderMetrics.Timer timer = RenderMetrics.start(this.getObject());
+        long length = -1;
+        try {
+            String result = RecursiveStyle.build(
+                    this.getStyle(), this.getObject(), super::toString);
+            BufferDrain drain = BufferDrain.of(this.getStringBuffer());
+            if (this.hints != null && drain == null
+                    && this.getObject() != null) {
+                this.hints.record(
+                        this.getObject().getClass(), result.length());
+            }
+            length = result.length() + (drain == null ? 0 : drain.drained());
+            return result;
+        } finally {
+            if (timer != null) {
+                timer.stop(length);
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Provides the size hints of the outputs in the given style.
+     *
+     * @param style the style, <code>null</code> for the default style
+     * @return the size hints
+     */
+    private static SizeHints hintsOf(ToStringStyle style) {
+        return SizeHints.of(
+                style == null ? getDefaultStyle() : style, sizeHints);
+    }
+
+    /**
+     * Creates a buffer presized for the output of the given object,
+     * unless a buffer is given.
+     *
+     * @param object the object to be output, may be <code>null</code>
+     * @param style  the style, <code>null</code> for the default style
+     * @param buffer the given buffer, may be <code>null</code>
+     * @return the buffer to populate
+     */
+    private static StringBuffer presize(
+            Object object, ToStringStyle style, StringBuffer buffer) {
+
+        if (buffer != null || object == null) {
+            return buffer;
+        }
+        return hintsOf(style).newBuffer(object.getClass());
+    }
+
+    /**
+     * Replaces the remaining fields by the elision marker of the style,
+     * once the maximum length of the output is reached.
+     *
+     * @param budget the style limiting the length of the output
+     */
+    private void elide(RecursiveStyle budget) {
+        if (!this.elided) {
+            budget.appendElidedFields(this.getStringBuffer());
+            this.elided = true;
+        }
+    }
+
+    /**
+     * Discards the partial output of a value, which failed to be
+     * appended, unless the buffer has been streamed out in between.
+     *
+     * @param mark    the length of the buffer before the value
+     * @param drain   the drain of the streamed buffer, may be
+     *                <code>null</code>
+     * @param drained the number of characters streamed out before
+     *                the value
+     */
+    private void discardFrom(int mark, BufferDrain drain, long drained) {
+        if (drain == null || drain.drained() == drained) {
+            this.getStringBuffer().setLength(mark);
+        }
+    }
+}
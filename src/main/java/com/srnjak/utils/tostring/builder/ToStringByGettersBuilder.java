@@ -2,14 +2,13 @@ package com.srnjak.utils.tostring.builder;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 import org.apache.commons.lang3.exception.ExceptionUtils;
-import org.apache.commons.lang3.reflect.FieldUtils;
 
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
-import java.lang.reflect.Field;
+import java.io.IOException;
+import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -29,12 +28,78 @@ import java.util.logging.Logger;
  */
 public class ToStringByGettersBuilder extends ReflectionToStringBuilder {
 
+    /**
+     * System property enabling the pooled buffers by default
+     */
+    public static final String POOLED_BUFFERS_PROPERTY =
+            "com.srnjak.utils.tostring.pooledBuffers";
+
     /**
      * Logger
      */
     private static final Logger log =
             Logger.getLogger(ToStringByGettersBuilder.class.getName());
 
+    /**
+     * Whether the static methods reuse the buffer of the thread
+     */
+    private static volatile boolean pooledBuffers =
+            Boolean.getBoolean(POOLED_BUFFERS_PROPERTY);
+
+    /**
+     * Policy for the getters, which failed to provide a value
+     */
+    private static volatile GetterFailurePolicy getterFailurePolicy =
+            GetterFailurePolicy.INVOKE;
+
+    /**
+     * Detector of the properties, which are not loaded yet
+     */
+    private static volatile LoadStateDetector loadStateDetector =
+            LoadStateDetector.NONE;
+
+    /**
+     * Whether the builder class overrides
+     * {@link #accept(PropertyDescriptor)} or
+     * {@link #getValue(PropertyDescriptor)}
+     */
+    private static final ClassValue<Boolean> hooked = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> c = type;
+                    c != ToStringByGettersBuilder.class;
+                    c = c.getSuperclass()) {
+                for (Method method : c.getDeclaredMethods()) {
+                    if ((method.getName().equals("accept")
+                            || method.getName().equals("getValue"))
+                            && Arrays.equals(
+                                    method.getParameterTypes(),
+                                    new Class<?>[] {
+                                            PropertyDescriptor.class})) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Size hints of the outputs in styles other than {@link RecursiveStyle}
+     */
+    private static final SizeHints sizeHints = new SizeHints();
+
+    /**
+     * Size hints learning the length of the output,
+     * <code>null</code> if the buffer was given
+     */
+    private final SizeHints hints;
+
+    /**
+     * Whether the omitted fields have been replaced by the elision marker
+     */
+    private boolean elided;
+
     /**
      * <p>
      * Builds a <code>toString</code> value from getters using the default
@@ -119,6 +184,14 @@ public class ToStringByGettersBuilder extends ReflectionToStringBuilder {
             final ToStringStyle style,
             final Class<? super T> reflectUpToClass) {
 
+        if (pooledBuffers && object != null) {
+            return BufferPool.render(
+                    hintsOf(style),
+                    object.getClass(),
+                    buffer -> new ToStringByGettersBuilder(
+                            object, style, buffer, reflectUpToClass));
+        }
+
         return new ToStringByGettersBuilder(
                 object,
                 style,
@@ -127,6 +200,212 @@ public class ToStringByGettersBuilder extends ReflectionToStringBuilder {
                 .toString();
     }
 
+    /**
+     * <p>
+     * Appends a <code>toString</code> value built from getters
+     * to the given <code>Appendable</code>.
+     * </p>
+     *
+     * <p>
+     * The value is streamed while it is being built. The built content
+     * is written into the appendable in chunks, between the properties,
+     * and between the elements of the arrays, collections and maps
+     * rendered by {@link RecursiveStyle}. The nested objects, which
+     * {@link RecursiveStyle} renders by their own builders, are still
+     * built as a whole, before being streamed.
+     * </p>
+     *
+     * <p>
+     * If the style is <code>null</code>, the default
+     * <code>ToStringStyle</code> is used.
+     * </p>
+     *
+     * @param <A>
+     *            the type of the appendable
+     * @param appendable
+     *            the <code>Appendable</code> to write into,
+     *            e.g. <code>Writer</code> or <code>StringBuilder</code>
+     * @param object
+     *            the Object to be output
+     * @param style
+     *            the style of the <code>toString</code> to create,
+     *            may be <code>null</code>
+     * @return the given appendable
+     * @throws IOException
+     *             if writing into the appendable fails
+     * @throws IllegalArgumentException
+     *             if the Object is <code>null</code>
+     *
+     * @see ToStringExclude
+     * @see org.apache.commons.lang3.builder.ToStringExclude
+     */
+    public static <A extends Appendable> A appendTo(
+            final A appendable,
+            final Object object,
+            final ToStringStyle style) throws IOException {
+
+        return BufferDrain.stream(
+                appendable, new ToStringByGettersBuilder(object, style));
+    }
+
+    /**
+     * <p>
+     * Appends the <code>toString</code> values built from getters of all
+     * the given objects to the given <code>Appendable</code>, each
+     * followed by the line separator.
+     * </p>
+     *
+     * @param <T>
+     *            the type of the objects
+     * @param <A>
+     *            the type of the appendable
+     * @param objects
+     *            the objects to be output, may contain <code>null</code>
+     * @param type
+     *            the class of the objects
+     * @param style
+     *            the style of the <code>toString</code> to create,
+     *            may be <code>null</code>
+     * @param appendable
+     *            the <code>Appendable</code> to write into
+     * @return the given appendable
+     * @throws IOException
+     *             if writing into the appendable fails
+     * @throws IllegalArgumentException
+     *             if the objects, the class or the appendable
+     *             is <code>null</code>
+     *
+     * @see #renderAll(Iterable, Class, ToStringStyle, Appendable,
+     *      CharSequence)
+     */
+    public static <T, A extends Appendable> A renderAll(
+            final Iterable<? extends T> objects,
+            final Class<T> type,
+            final ToStringStyle style,
+            final A appendable) throws IOException {
+
+        return renderAll(
+                objects, type, style, appendable, System.lineSeparator());
+    }
+
+    /**
+     * <p>
+     * Appends the <code>toString</code> values built from getters of all
+     * the given objects to the given <code>Appendable</code>, each
+     * followed by the given separator.
+     * </p>
+     *
+     * <p>
+     * It is meant for exporting many objects of the same class. The
+     * properties of the class are resolved once, before the first object
+     * is output. All the values are built in a single buffer, which is
+     * written into the appendable after each object, without creating
+     * a <code>String</code> of the value. The values are the same as of
+     * {@link #toString(Object, ToStringStyle, Class)} without
+     * the superclass limit. The objects of other
+     * classes, e.g. subclasses, are output as well, each with the cached
+     * properties of its own class.
+     * </p>
+     *
+     * @param <T>
+     *            the type of the objects
+     * @param <A>
+     *            the type of the appendable
+     * @param objects
+     *            the objects to be output, may contain <code>null</code>
+     * @param type
+     *            the class of the objects
+     * @param style
+     *            the style of the <code>toString</code> to create,
+     *            may be <code>null</code>
+     * @param appendable
+     *            the <code>Appendable</code> to write into
+     * @param separator
+     *            the text following each value,
+     *            <code>null</code> for none
+     * @return the given appendable
+     * @throws IOException
+     *             if writing into the appendable fails
+     * @throws IllegalArgumentException
+     *             if the objects, the class or the appendable
+     *             is <code>null</code>
+     */
+    public static <T, A extends Appendable> A renderAll(
+            final Iterable<? extends T> objects,
+            final Class<T> type,
+            final ToStringStyle style,
+            final A appendable,
+            final CharSequence separator) throws IOException {
+
+        if (objects == null || type == null || appendable == null) {
+            throw new IllegalArgumentException(
+                    "The objects, the class and the appendable "
+                            + "should not be null.");
+        }
+
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            GetterMetadata.of(c);
+        }
+
+        StringBuffer buffer = hintsOf(style).newBuffer(type);
+        char[] chars = new char[buffer.capacity()];
+
+        for (T object : objects) {
+            buffer.setLength(0);
+            if (object == null) {
+                new ToStringBuilder(null, style, buffer).toString();
+            } else {
+                new ToStringByGettersBuilder(object, style, buffer)
+                        .appendAll();
+            }
+            if (separator != null) {
+                buffer.append(separator);
+            }
+
+            if (appendable instanceof Writer) {
+                if (chars.length < buffer.length()) {
+                    chars = new char[buffer.capacity()];
+                }
+                buffer.getChars(0, buffer.length(), chars, 0);
+                ((Writer) appendable).write(chars, 0, buffer.length());
+            } else {
+                appendable.append(buffer);
+            }
+        }
+        return appendable;
+    }
+
+    /**
+     * <p>
+     * Provides a <code>toString</code> value built from getters,
+     * which is built only when it is needed for the first time,
+     * e.g. when a log statement is actually output.
+     * </p>
+     *
+     * <p>
+     * The value is the same as of
+     * {@link #toString(Object, ToStringStyle, Class)} without
+     * the superclass limit. Until it is needed, no reflection is performed.
+     * </p>
+     *
+     * @param object
+     *            the Object to be output
+     * @param style
+     *            the style of the <code>toString</code> to create,
+     *            may be <code>null</code>
+     * @return the lazily built String result
+     * @throws IllegalArgumentException
+     *             if the Object is <code>null</code>
+     *
+     * @see LazyToString
+     */
+    public static LazyToString lazy(
+            final Object object, final ToStringStyle style) {
+        return new LazyToString(
+                object, style, (value, valueStyle) ->
+                        toString(value, valueStyle, null));
+    }
+
     /**
      * Builds a String for a toString method from getters
      * excluding the given property names.
@@ -156,6 +435,14 @@ public class ToStringByGettersBuilder extends ReflectionToStringBuilder {
             final Object object,
             final String... excludeFieldNames) {
 
+        if (pooledBuffers && object != null) {
+            return BufferPool.render(
+                    hintsOf(null),
+                    object.getClass(),
+                    buffer -> new ToStringByGettersBuilder(object, null, buffer)
+                            .setExcludeFieldNames(excludeFieldNames));
+        }
+
         return new ToStringByGettersBuilder(object)
                 .setExcludeFieldNames(excludeFieldNames).toString();
     }
@@ -200,7 +487,8 @@ public class ToStringByGettersBuilder extends ReflectionToStringBuilder {
      *             if the Object passed in is <code>null</code>
      */
     public ToStringByGettersBuilder(Object object) {
-        super(object);
+        super(object, null, presize(object, null, null));
+        this.hints = hintsOf(this.getStyle());
     }
 
     /**
@@ -222,7 +510,8 @@ public class ToStringByGettersBuilder extends ReflectionToStringBuilder {
      *             if the Object passed in is <code>null</code>
      */
     public ToStringByGettersBuilder(Object object, ToStringStyle style) {
-        super(object, style);
+        super(object, style, presize(object, style, null));
+        this.hints = hintsOf(this.getStyle());
     }
 
     /**
@@ -235,7 +524,8 @@ public class ToStringByGettersBuilder extends ReflectionToStringBuilder {
      * </p>
      *
      * <p>
-     * If the buffer is <code>null</code>, a new one is created.
+     * If the buffer is <code>null</code>, a new one is created, presized
+     * from the length of the previous outputs for the class of the object.
      * </p>
      *
      * @param object
@@ -251,7 +541,8 @@ public class ToStringByGettersBuilder extends ReflectionToStringBuilder {
      */
     public ToStringByGettersBuilder(
             Object object, ToStringStyle style, StringBuffer buffer) {
-        super(object, style, buffer);
+        super(object, style, presize(object, style, buffer));
+        this.hints = buffer == null ? hintsOf(this.getStyle()) : null;
     }
 
     /**
@@ -280,10 +571,105 @@ public class ToStringByGettersBuilder extends ReflectionToStringBuilder {
         super(
                 object,
                 style,
-                buffer,
+                presize(object, style, buffer),
                 reflectUpToClass,
                 false,
                 false);
+        this.hints = buffer == null ? hintsOf(this.getStyle()) : null;
+    }
+
+    /**
+     * <p>
+     * Clears the cached properties of all classes.
+     * </p>
+     *
+     * <p>
+     * The properties of a class are introspected once and reused for all
+     * later invocations. The cache does not prevent classes from being
+     * unloaded, but it may be cleared explicitly, e.g. on redeploy.
+     * </p>
+     */
+    public static void clearCache() {
+        GetterMetadata.clear();
+    }
+
+    /**
+     * <p>
+     * Specifies whether the static <code>toString</code> and
+     * <code>toStringExclude</code> methods reuse a buffer kept by the
+     * current thread, instead of creating a new one on each invocation.
+     * </p>
+     *
+     * <p>
+     * The buffer is presized from the length of the previous output for
+     * the same class, so mostly only the resulting string is allocated.
+     * A buffer grown beyond 65536 characters is not kept.
+     * </p>
+     *
+     * <p>
+     * It is disabled by default, unless the system property
+     * {@value #POOLED_BUFFERS_PROPERTY} is set to <code>true</code>.
+     * </p>
+     *
+     * @param enabled whether to reuse the buffers
+     */
+    public static void usePooledBuffers(boolean enabled) {
+        pooledBuffers = enabled;
+    }
+
+    /**
+     * <p>
+     * Specifies the policy for the getters, which failed to provide
+     * a value.
+     * </p>
+     *
+     * <p>
+     * By default, a failing getter is invoked again on each output and
+     * reported as <code>&lt;N/A&gt;</code>. The other policies remember
+     * the failure per property, so the getter stops throwing on later
+     * outputs, e.g. of lazy-loading entities.
+     * </p>
+     *
+     * @param policy the policy
+     * @throws IllegalArgumentException if the policy is <code>null</code>
+     */
+    public static void useGetterFailurePolicy(GetterFailurePolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException(
+                    "The policy must not be null.");
+        }
+        getterFailurePolicy = policy;
+    }
+
+    /**
+     * <p>
+     * Specifies the detector of the properties, which are not loaded yet,
+     * e.g. lazy associations of JPA entities.
+     * </p>
+     *
+     * <p>
+     * The detector is consulted before invoking each getter. If the
+     * property is not loaded, {@link LoadStateDetector#NOT_LOADED} is
+     * output instead of invoking the getter, which would load it.
+     * By default, all properties are considered loaded.
+     * </p>
+     *
+     * <p>
+     * If the detector fails with <code>java.lang.RuntimeException</code>,
+     * the property is reported as <code>&lt;N/A&gt;</code> without invoking
+     * the getter, as if the getter failed.
+     * </p>
+     *
+     * @param detector the detector,
+     *                 e.g. {@link LoadStateDetector#persistence()}
+     * @throws IllegalArgumentException if the detector is <code>null</code>
+     */
+    public static void useLoadStateDetector(LoadStateDetector detector) {
+        if (detector == null) {
+            throw new IllegalArgumentException(
+                    "The detector must not be null.");
+        }
+        loadStateDetector = detector;
     }
 
     /**
@@ -311,16 +697,22 @@ public class ToStringByGettersBuilder extends ReflectionToStringBuilder {
             return false;
         }
 
-        String propertyName = propertyDescriptor.getName();
-        Method getter = propertyDescriptor.getReadMethod();
-        Class<?> declaringClass = getter.getDeclaringClass();
-
-        Field field = FieldUtils.getField(declaringClass, propertyName, true);
+        return !GetterMetadata.isExcluded(propertyDescriptor);
+    }
 
-        return !getter.isAnnotationPresent(ToStringExclude.class)
-                && (field == null || !field.isAnnotationPresent(
-                        org.apache.commons.lang3.builder
-                                .ToStringExclude.class));
+    /**
+     * Returns whether or not to append the given cached property.
+     * The annotations are already resolved by the cache,
+     * so only the excluded names are checked.
+     *
+     * @param property
+     *            The property to test.
+     * @return Whether or not to append the given property.
+     */
+    private boolean accept(final GetterMetadata.GetterProperty property) {
+        return this.excludeFieldNames == null
+                || Arrays.binarySearch(
+                        this.excludeFieldNames, property.getName()) < 0;
     }
 
     /**
@@ -335,48 +727,122 @@ public class ToStringByGettersBuilder extends ReflectionToStringBuilder {
      * had been called and not implemented by the object.
      * </p>
      *
+     * <p>
+     * The properties are introspected once per class. If a subclass
+     * overrides {@link #accept(PropertyDescriptor)} or
+     * {@link #getValue(PropertyDescriptor)}, the cached properties
+     * are passed through both of them.
+     * </p>
+     *
      * @param clazz
      *            The class of object parameter
      */
     @Override
     protected void appendFieldsIn(final Class<?> clazz) {
-        try {
-            if (clazz.isArray()) {
-                this.reflectionAppendArray(this.getObject());
-                return;
-            }
+        if (clazz.isArray()) {
+            this.reflectionAppendArray(this.getObject());
+            return;
+        }
 
-            Class<?> superclass = null;
-            if (!clazz.equals(Object.class)) {
-                superclass = clazz.getSuperclass();
-            }
+        BufferDrain drain = BufferDrain.of(this.getStringBuffer());
+        RecursiveStyle budget = RecursiveStyle.budgetOf(this.getStyle());
+        GetterFailurePolicy policy = getterFailurePolicy;
+        LoadStateDetector detector = loadStateDetector;
+        boolean hooks = hooked.get(this.getClass());
+
+        for (GetterMetadata.GetterProperty property : hooks
+                ? GetterMetadata.all(clazz)
+                : GetterMetadata.of(clazz)) {
+
+            if (hooks
+                    ? this.accept(property.getDescriptor())
+                    : this.accept(property)) {
+
+                GetterFailurePolicy.Decision decision = policy.decide(property);
+                if (decision == GetterFailurePolicy.Decision.OMIT) {
+                    continue;
+                }
+
+                if (drain != null) {
+                    drain.drain();
+                }
 
-            for(PropertyDescriptor propertyDescriptor :
-                    Introspector.getBeanInfo(clazz, superclass)
-                            .getPropertyDescriptors()) {
+                if (budget != null
+                        && budget.isExhausted(this.getStringBuffer())) {
+                    this.elide(budget);
+                    return;
+                }
 
-                final String fieldName = propertyDescriptor.getName();
-                if (this.accept(propertyDescriptor)) {
+                if (decision == GetterFailurePolicy.Decision.MARK) {
+                    this.append(
+                            JsonStyle.unavailableFieldName(
+                                    this.getStyle(), property.getName()),
+                            "<N/A>");
+                    continue;
+                }
 
-                    try {
+                int mark = this.getStringBuffer().length();
+                long drained = drain == null ? 0 : drain.drained();
+                boolean checked = false;
+                boolean invoked = false;
+                try {
+                    if (!detector.isLoaded(
+                            this.getObject(), property.getName())) {
                         this.append(
-                                fieldName, this.getValue(propertyDescriptor));
+                                property.getName(),
+                                LoadStateDetector.NOT_LOADED);
+                        continue;
+                    }
+                    checked = true;
+
+                    Object value = this.read(property, hooks);
+                    invoked = true;
+                    policy.succeeded(property);
+
+                    this.append(property.getName(), value);
 
-                    } catch (IllegalAccessException |
-                            IllegalArgumentException |
-                            InvocationTargetException e) {
-                        throw new RuntimeException(e);
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException(e);
 
-                    } catch (RuntimeException e) {
-                        log.finer(e::toString);
-                        log.finest(() -> ExceptionUtils.getStackTrace(e));
+                } catch (BufferDrain.Failure e) {
+                    throw e;
 
-                        this.append(null, "<N/A>");
+                } catch (RuntimeException e) {
+                    if (checked && !invoked) {
+                        policy.failed(property);
                     }
+
+                    log.finer(e::toString);
+                    log.finest(() -> ExceptionUtils.getStackTrace(e));
+                    RenderMetrics.failed(this.getObject());
+
+                    this.discardFrom(mark, drain, drained);
+                    this.append(
+                            JsonStyle.unavailableFieldName(
+                                    this.getStyle(), property.getName()),
+                            "<N/A>");
                 }
             }
-        } catch (IntrospectionException e) {
-            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads the value of the property through its cached accessor,
+     * or through {@link #getValue(PropertyDescriptor)}, if the hooks
+     * are overridden. The exception thrown by the getter is rethrown
+     * as it is.
+     */
+    private Object read(GetterMetadata.GetterProperty property, boolean hooks)
+            throws IllegalAccessException {
+
+        if (!hooks && property.getAccessor() != null) {
+            return property.getAccessor().get(this.getObject());
+        }
+
+        try {
+            return this.getValue(property.getDescriptor());
+        } catch (InvocationTargetException e) {
+            throw ValueAccessors.rethrow(e.getCause());
         }
     }
 
@@ -407,4 +873,118 @@ public class ToStringByGettersBuilder extends ReflectionToStringBuilder {
         return propertyDescriptor.getReadMethod().invoke(this.getObject());
     }
 
-}
\ No newline at end of file
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The length of the output is learned to presize the buffers
+     * of later outputs for the same class.</p>
+     */
+    @Override
+    public String toString() {
+        RenderMetrics.Timer timer = RenderMetrics.start(this.getObject());
+        long length = -1;
+        try {
+            String result = RecursiveStyle.build(
+                    this.getStyle(), this.getObject(), super::toString);
+            BufferDrain drain = BufferDrain.of(this.getStringBuffer());
+            if (this.hints != null && drain == null
+                    && this.getObject() != null) {
+                this.hints.record(
+                        this.getObject().getClass(), result.length());
+            }
+            length = result.length() + (drain == null ? 0 : drain.drained());
+            return result;
+        } finally {
+            if (timer != null) {
+                timer.stop(length);
+            }
+        }
+    }
+
+    /**
+     * Appends the properties of the object and the end of the output
+     * to the buffer, as {@link #toString()} does, without creating
+     * a <code>String</code> of the buffer.
+     */
+    private void appendAll() {
+        RenderMetrics.Timer timer = RenderMetrics.start(this.getObject());
+        long length = -1;
+        try {
+            RecursiveStyle.build(this.getStyle(), this.getObject(), () -> {
+                Class<?> clazz = this.getObject().getClass();
+                this.appendFieldsIn(clazz);
+                while (clazz.getSuperclass() != null
+                        && clazz != this.getUpToClass()) {
+                    clazz = clazz.getSuperclass();
+                    this.appendFieldsIn(clazz);
+                }
+                this.getStyle().appendEnd(
+                        this.getStringBuffer(), this.getObject());
+                return null;
+            });
+            length = this.getStringBuffer().length();
+        } finally {
+            if (timer != null) {
+                timer.stop(length);
+            }
+        }
+    }
+
+    /**
+     * Provides the size hints of the outputs in the given style.
+     *
+     * @param style the style, <code>null</code> for the default style
+     * @return the size hints
+     */
+    private static SizeHints hintsOf(ToStringStyle style) {
+        return SizeHints.of(
+                style == null ? getDefaultStyle() : style, sizeHints);
+    }
+
+    /**
+     * Creates a buffer presized for the output of the given object,
+     * unless a buffer is given.
+     *
+     * @param object the object to be output, may be <code>null</code>
+     * @param style  the style, <code>null</code> for the default style
+     * @param buffer the given buffer, may be <code>null</code>
+     * @return the buffer to populate
+     */
+    private static StringBuffer presize(
+            Object object, ToStringStyle style, StringBuffer buffer) {
+
+        if (buffer != null || object == null) {
+            return buffer;
+        }
+        return hintsOf(style).newBuffer(object.getClass());
+    }
+
+    /**
+     * Replaces the remaining fields by the elision marker of the style,
+     * once the maximum length of the output is reached.
+     *
+     * @param budget the style limiting the length of the output
+     */
+    private void elide(RecursiveStyle budget) {
+        if (!this.elided) {
+            budget.appendElidedFields(this.getStringBuffer());
+            this.elided = true;
+        }
+    }
+
+    /**
+     * Discards the partial output of a value, which failed to be
+     * appended, unless the buffer has been streamed out in between.
+     *
+     * @param mark    the length of the buffer before the value
+     * @param drain   the drain of the streamed buffer, may be
+     *                <code>null</code>
+     * @param drained the number of characters streamed out before
+     *                the value
+     */
+    private void discardFrom(int mark, BufferDrain drain, long drained) {
+        if (drain == null || drain.drained() == drained) {
+            this.getStringBuffer().setLength(mark);
+        }
+    }
+}
@@ -0,0 +1,623 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * <p>Renders string representation of objects by fields or by getters,
+ * without any synchronization.</p>
+ *
+ * <p>It is the alternative to {@link ToStringByFieldsBuilder} and
+ * {@link ToStringByGettersBuilder}, which write into a synchronized
+ * <code>StringBuffer</code> through Apache's
+ * {@link org.apache.commons.lang3.builder.ToStringStyle}. The renderer
+ * writes into a <code>StringBuilder</code> or any other
+ * <code>Appendable</code>, formatted by {@link TextStyle}.
+ * The same fields and getters are output, and
+ * {@link ToStringExclude} is honored the same way.</p>
+ *
+ * <p>The renderer is immutable and may be shared between threads.</p>
+ *
+ * <p>If accessing the values caused <code>java.lang.RuntimeException</code>,
+ * it reports <code>&lt;N/A&gt;</code> instead of value.</p>
+ */
+public final class ToStringRenderer {
+
+    /**
+     * Logger
+     */
+    private static final Logger log =
+            Logger.getLogger(ToStringRenderer.class.getName());
+
+    /**
+     * Text reported instead of the value, which is not available
+     */
+    private static final String NOT_AVAILABLE = "<N/A>";
+
+    /**
+     * Source of the output values.
+     */
+    enum Traversal {
+
+        /**
+         * Values of the fields, as by {@link ToStringByFieldsBuilder}
+         */
+        FIELDS,
+
+        /**
+         * Values of the getters, as by {@link ToStringByGettersBuilder}
+         */
+        GETTERS
+    }
+
+    /**
+     * Builder for {@link ToStringRenderer}.
+     */
+    public static class Builder {
+
+        private final Traversal traversal;
+
+        private TextStyle style = TextStyle.DEFAULT_STYLE;
+        private boolean outputTransients = false;
+        private boolean outputStatics = false;
+        private Class<?> reflectUpToClass = null;
+        private String[] excludeFieldNames = ArrayUtils.EMPTY_STRING_ARRAY;
+        private GetterFailurePolicy getterFailurePolicy =
+                GetterFailurePolicy.INVOKE;
+        private LoadStateDetector loadStateDetector = LoadStateDetector.NONE;
+
+        private Builder(Traversal traversal) {
+            this.traversal = traversal;
+        }
+
+        /**
+         * Specifies the style of the output.
+         *
+         * @param style the style, <code>null</code> for the default style
+         * @return this builder
+         */
+        public Builder style(TextStyle style) {
+            this.style = style == null ? TextStyle.DEFAULT_STYLE : style;
+            return this;
+        }
+
+        /**
+         * Specifies whether to include transient fields.
+         * Applies only to the rendering by fields.
+         *
+         * @param outputTransients whether to include transient fields
+         * @return this builder
+         */
+        public Builder outputTransients(boolean outputTransients) {
+            this.outputTransients = outputTransients;
+            return this;
+        }
+
+        /**
+         * Specifies whether to include static fields.
+         * Applies only to the rendering by fields.
+         *
+         * @param outputStatics whether to include static fields
+         * @return this builder
+         */
+        public Builder outputStatics(boolean outputStatics) {
+            this.outputStatics = outputStatics;
+            return this;
+        }
+
+        /**
+         * Specifies the superclass to reflect up to (inclusive).
+         *
+         * @param reflectUpToClass the superclass, may be <code>null</code>
+         * @return this builder
+         */
+        public Builder reflectUpTo(Class<?> reflectUpToClass) {
+            this.reflectUpToClass = reflectUpToClass;
+            return this;
+        }
+
+        /**
+         * Specifies the names of the fields or properties to exclude.
+         *
+         * @param excludeFieldNames the names to exclude,
+         *                          <code>null</code> entries are ignored
+         * @return this builder
+         */
+        public Builder excludeFieldNames(String... excludeFieldNames) {
+            this.excludeFieldNames = excludeFieldNames == null
+                    ? ArrayUtils.EMPTY_STRING_ARRAY
+                    : ToStringByFieldsBuilder.toNoNullStringArray(
+                            Arrays.asList(excludeFieldNames));
+            Arrays.sort(this.excludeFieldNames);
+            return this;
+        }
+
+        /**
+         * Specifies the names of the fields or properties to exclude.
+         *
+         * @param excludeFieldNames the names to exclude,
+         *                          <code>null</code> excludes nothing
+         * @return this builder
+         */
+        public Builder excludeFieldNames(Collection<String> excludeFieldNames) {
+            this.excludeFieldNames =
+                    ToStringByFieldsBuilder.toNoNullStringArray(
+                            excludeFieldNames);
+            Arrays.sort(this.excludeFieldNames);
+            return this;
+        }
+
+        /**
+         * Specifies the policy for the getters, which failed to provide
+         * a value. Applies only to the rendering by getters.
+         *
+         * @param getterFailurePolicy the policy,
+         *                            <code>null</code> for the default
+         * @return this builder
+         */
+        public Builder getterFailurePolicy(
+                GetterFailurePolicy getterFailurePolicy) {
+            this.getterFailurePolicy = getterFailurePolicy == null
+                    ? GetterFailurePolicy.INVOKE
+                    : getterFailurePolicy;
+            return this;
+        }
+
+        /**
+         * Specifies the detector of the properties, which are not loaded
+         * yet. Applies only to the rendering by getters.
+         *
+         * @param loadStateDetector the detector,
+         *                          <code>null</code> for the default
+         * @return this builder
+         * @see ToStringByGettersBuilder#useLoadStateDetector(
+         *          LoadStateDetector)
+         */
+        public Builder loadStateDetector(LoadStateDetector loadStateDetector) {
+            this.loadStateDetector = loadStateDetector == null
+                    ? LoadStateDetector.NONE
+                    : loadStateDetector;
+            return this;
+        }
+
+        /**
+         * Builds the {@link ToStringRenderer}.
+         *
+         * @return The {@link ToStringRenderer} object.
+         */
+        public ToStringRenderer build() {
+            return new ToStringRenderer(this);
+        }
+    }
+
+    /**
+     * Provides builder of the renderer, which outputs the values
+     * of the fields, as {@link ToStringByFieldsBuilder} does.
+     *
+     * @return The builder
+     */
+    public static Builder byFields() {
+        return new Builder(Traversal.FIELDS);
+    }
+
+    /**
+     * Provides builder of the renderer, which outputs the values
+     * of the getters, as {@link ToStringByGettersBuilder} does.
+     *
+     * @return The builder
+     */
+    public static Builder byGetters() {
+        return new Builder(Traversal.GETTERS);
+    }
+
+    private final Traversal traversal;
+    private final TextStyle style;
+    private final boolean outputTransients;
+    private final boolean outputStatics;
+    private final Class<?> reflectUpToClass;
+    private final String[] excludeFieldNames;
+    private final GetterFailurePolicy getterFailurePolicy;
+    private final LoadStateDetector loadStateDetector;
+
+    private ToStringRenderer(Builder builder) {
+        this.traversal = builder.traversal;
+        this.style = builder.style;
+        this.outputTransients = builder.outputTransients;
+        this.outputStatics = builder.outputStatics;
+        this.reflectUpToClass = builder.reflectUpToClass;
+        this.excludeFieldNames = builder.excludeFieldNames;
+        this.getterFailurePolicy = builder.getterFailurePolicy;
+        this.loadStateDetector = builder.loadStateDetector;
+    }
+
+    /**
+     * Builds the <code>toString</code> value of the given object.
+     *
+     * @param object the Object to be output
+     * @return the String result
+     * @throws IllegalArgumentException if the Object is <code>null</code>
+     */
+    public String toString(Object object) {
+        return appendTo(new StringBuilder(), object).toString();
+    }
+
+    /**
+     * Provides the <code>toString</code> value of the given object,
+     * which is built only when it is needed for the first time.
+     *
+     * @param object the Object to be output
+     * @return the lazily built String result
+     * @throws IllegalArgumentException if the Object is <code>null</code>
+     * @see LazyToString
+     */
+    public LazyToString lazy(Object object) {
+        return new LazyToString(
+                object, this, (value, renderer) -> renderer.toString(value));
+    }
+
+    /**
+     * Appends the <code>toString</code> value of the given object
+     * to the given <code>StringBuilder</code>.
+     *
+     * @param builder the <code>StringBuilder</code> to append to
+     * @param object  the Object to be output
+     * @return the given <code>StringBuilder</code>
+     * @throws IllegalArgumentException if the Object is <code>null</code>
+     */
+    public StringBuilder appendTo(StringBuilder builder, Object object) {
+        render(TextSink.of(builder), object);
+        return builder;
+    }
+
+    /**
+     * Appends the <code>toString</code> value of the given object
+     * to the given <code>Appendable</code>.
+     *
+     * @param <A>        the type of the appendable
+     * @param appendable the <code>Appendable</code> to append to
+     * @param object     the Object to be output
+     * @return the given <code>Appendable</code>
+     * @throws IOException if appending fails
+     * @throws IllegalArgumentException if the Object is <code>null</code>
+     */
+    public <A extends Appendable> A appendTo(A appendable, Object object)
+            throws IOException {
+
+        try {
+            render(TextSink.of(appendable), object);
+        } catch (TextSink.Failure e) {
+            throw e.getCause();
+        }
+        return appendable;
+    }
+
+    private void render(TextSink out, Object object) {
+        if (object == null) {
+            throw new IllegalArgumentException(
+                    "The Object passed in should not be null.");
+        }
+        new Rendering(out).appendObject(object, true);
+    }
+
+    /**
+     * State of a single rendering.
+     */
+    private final class Rendering {
+
+        private final TextSink out;
+
+        /**
+         * Objects being rendered, to detect the cycles
+         */
+        private final Map<Object, Object> path = new IdentityHashMap<>();
+
+        /**
+         * Whether no field was output yet by the current object
+         */
+        private boolean first;
+
+        private Rendering(TextSink out) {
+            this.out = out;
+        }
+
+        private void appendObject(Object object, boolean root) {
+            boolean outerFirst = first;
+            first = true;
+            path.put(object, object);
+
+            appendClassName(object);
+            out.append(style.contentStart);
+
+            Class<?> clazz = object.getClass();
+            if (clazz.isArray()) {
+                if (style.fieldSeparatorAtStart) {
+                    out.append(style.fieldSeparator);
+                }
+                appendArray(object);
+            } else {
+                Class<?> upToClass = root ? reflectUpToClass : null;
+                appendFieldsIn(object, clazz, root);
+                while (clazz.getSuperclass() != null && clazz != upToClass) {
+                    clazz = clazz.getSuperclass();
+                    appendFieldsIn(object, clazz, root);
+                }
+
+                if (style.fieldSeparatorAtEnd
+                        && (!first || style.fieldSeparatorAtStart)) {
+                    out.append(style.fieldSeparator);
+                }
+            }
+            out.append(style.contentEnd);
+
+            path.remove(object);
+            first = outerFirst;
+        }
+
+        private void appendFieldsIn(Object object, Class<?> clazz, boolean root) {
+            if (traversal == Traversal.FIELDS) {
+                FieldMetadata.FieldProperty[] fields = root
+                        ? FieldMetadata.of(clazz).select(
+                                outputTransients,
+                                outputStatics,
+                                excludeFieldNames)
+                        : FieldMetadata.of(clazz).select(false, false, null);
+
+                for (FieldMetadata.FieldProperty field : fields) {
+                    appendProperty(object, field.getName(), field.getAccessor());
+                }
+            } else {
+                for (GetterMetadata.GetterProperty property :
+                        GetterMetadata.of(clazz)) {
+
+                    if (!root || Arrays.binarySearch(
+                            excludeFieldNames, property.getName()) < 0) {
+                        appendGetter(object, property);
+                    }
+                }
+            }
+        }
+
+        private void appendProperty(
+                Object object, String name, ValueAccessor accessor) {
+
+            try {
+                appendField(name, accessor.get(object));
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            } catch (TextSink.Failure e) {
+                throw e;
+            } catch (RuntimeException e) {
+                log.finer(e::toString);
+                log.finest(() -> ExceptionUtils.getStackTrace(e));
+
+                appendField(null, NOT_AVAILABLE);
+            }
+        }
+
+        private void appendGetter(
+                Object object, GetterMetadata.GetterProperty property) {
+
+            switch (getterFailurePolicy.decide(property)) {
+                case OMIT:
+                    return;
+                case MARK:
+                    appendField(null, NOT_AVAILABLE);
+                    return;
+                default:
+                    break;
+            }
+
+            boolean checked = false;
+            boolean invoked = false;
+            try {
+                if (!loadStateDetector.isLoaded(object, property.getName())) {
+                    appendField(
+                            property.getName(), LoadStateDetector.NOT_LOADED);
+                    return;
+                }
+                checked = true;
+
+                Object value = property.getAccessor().get(object);
+                invoked = true;
+                getterFailurePolicy.succeeded(property);
+
+                appendField(property.getName(), value);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            } catch (TextSink.Failure e) {
+                throw e;
+            } catch (RuntimeException e) {
+                if (checked && !invoked) {
+                    getterFailurePolicy.failed(property);
+                }
+
+                log.finer(e::toString);
+                log.finest(() -> ExceptionUtils.getStackTrace(e));
+
+                appendField(null, NOT_AVAILABLE);
+            }
+        }
+
+        private void appendField(String name, Object value) {
+            if (!first || style.fieldSeparatorAtStart) {
+                out.append(style.fieldSeparator);
+            }
+            first = false;
+
+            if (style.useFieldNames && name != null) {
+                out.append(name).append(style.fieldNameValueSeparator);
+            }
+            appendValue(value);
+        }
+
+        private void appendValue(Object value) {
+            if (value == null) {
+                out.append(style.nullText);
+                return;
+            }
+
+            if (path.containsKey(value)
+                    && !(value instanceof Number
+                            || value instanceof Boolean
+                            || value instanceof Character)) {
+                out.append(ObjectUtils.identityToString(value));
+                return;
+            }
+
+            path.put(value, value);
+            if (value instanceof Collection) {
+                appendCollection((Collection<?>) value);
+            } else if (value instanceof Map) {
+                appendMap((Map<?, ?>) value);
+            } else if (value.getClass().isArray()) {
+                appendArray(value);
+            } else {
+                appendDetail(value);
+            }
+            path.remove(value);
+        }
+
+        private void appendDetail(Object value) {
+            if (style.isRecursive()
+                    && style.acceptance.accept(value.getClass())) {
+                appendObject(value, false);
+            } else {
+                out.append(String.valueOf(value));
+            }
+        }
+
+        private void appendCollection(Collection<?> collection) {
+            if (!style.isRecursive()) {
+                out.append(String.valueOf(collection));
+                return;
+            }
+
+            appendClassName(collection);
+            out.append(style.arrayStart);
+            int i = 0;
+            for (Object item : collection) {
+                if (i++ > 0) {
+                    out.append(style.arraySeparator);
+                }
+                appendValue(item);
+            }
+            out.append(style.arrayEnd);
+        }
+
+        private void appendMap(Map<?, ?> map) {
+            if (!style.isRecursive()) {
+                out.append(String.valueOf(map));
+                return;
+            }
+
+            appendClassName(map);
+            out.append(RecursiveStyle.MAP_START);
+            int i = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (i++ > 0) {
+                    out.append(RecursiveStyle.MAP_ENTRIES_SEPARATOR);
+                }
+                appendMapItem(entry.getKey());
+                out.append(RecursiveStyle.KEY_VALUE_SEPARATOR);
+                appendMapItem(entry.getValue());
+            }
+            out.append(RecursiveStyle.MAP_END);
+        }
+
+        private void appendMapItem(Object item) {
+            if (item == null) {
+                out.append(style.nullText);
+            } else {
+                appendDetail(item);
+            }
+        }
+
+        private void appendArray(Object array) {
+            out.append(style.arrayStart);
+            if (array instanceof Object[]) {
+                Object[] items = (Object[]) array;
+                for (int i = 0; i < items.length; i++) {
+                    if (i > 0) {
+                        out.append(style.arraySeparator);
+                    }
+                    appendValue(items[i]);
+                }
+            } else {
+                appendPrimitiveArray(array);
+            }
+            out.append(style.arrayEnd);
+        }
+
+        private void appendPrimitiveArray(Object array) {
+            if (array instanceof int[]) {
+                int[] items = (int[]) array;
+                for (int i = 0; i < items.length; i++) {
+                    appendArraySeparator(i).append(items[i]);
+                }
+            } else if (array instanceof long[]) {
+                long[] items = (long[]) array;
+                for (int i = 0; i < items.length; i++) {
+                    appendArraySeparator(i).append(items[i]);
+                }
+            } else if (array instanceof double[]) {
+                double[] items = (double[]) array;
+                for (int i = 0; i < items.length; i++) {
+                    appendArraySeparator(i).append(items[i]);
+                }
+            } else if (array instanceof float[]) {
+                float[] items = (float[]) array;
+                for (int i = 0; i < items.length; i++) {
+                    appendArraySeparator(i).append(items[i]);
+                }
+            } else if (array instanceof byte[]) {
+                byte[] items = (byte[]) array;
+                for (int i = 0; i < items.length; i++) {
+                    appendArraySeparator(i).append(items[i]);
+                }
+            } else if (array instanceof short[]) {
+                short[] items = (short[]) array;
+                for (int i = 0; i < items.length; i++) {
+                    appendArraySeparator(i).append(items[i]);
+                }
+            } else if (array instanceof char[]) {
+                char[] items = (char[]) array;
+                for (int i = 0; i < items.length; i++) {
+                    appendArraySeparator(i).append(items[i]);
+                }
+            } else if (array instanceof boolean[]) {
+                boolean[] items = (boolean[]) array;
+                for (int i = 0; i < items.length; i++) {
+                    appendArraySeparator(i).append(items[i]);
+                }
+            }
+        }
+
+        private TextSink appendArraySeparator(int index) {
+            if (index > 0) {
+                out.append(style.arraySeparator);
+            }
+            return out;
+        }
+
+        private void appendClassName(Object object) {
+            if (style.useClassName) {
+                out.append(style.useShortClassName
+                        ? ClassUtils.getShortClassName(object.getClass())
+                        : object.getClass().getName());
+            }
+            if (style.useIdentityHashCode) {
+                out.append('@').append(Integer.toHexString(
+                        System.identityHashCode(object)));
+            }
+        }
+    }
+}
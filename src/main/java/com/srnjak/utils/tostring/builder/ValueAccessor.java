@@ -0,0 +1,24 @@
+package com.srnjak.utils.tostring.builder;
+
+/**
+ * <p>Reads the value of a single property of an object.</p>
+ *
+ * <p>The accessors are resolved once per property and cached together with
+ * the property metadata. Exceptions thrown by a getter are rethrown
+ * as they are, without being wrapped.</p>
+ *
+ * @see ValueAccessors
+ */
+@FunctionalInterface
+interface ValueAccessor {
+
+    /**
+     * Reads the value from the given object.
+     *
+     * @param target the object to read from,
+     *               ignored for static fields
+     * @return the value
+     * @throws IllegalAccessException if the property is not accessible
+     */
+    Object get(Object target) throws IllegalAccessException;
+}
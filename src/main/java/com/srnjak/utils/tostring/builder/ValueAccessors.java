@@ -0,0 +1,226 @@
+package com.srnjak.utils.tostring.builder;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * <p>Creates {@link ValueAccessor}s for fields and getters.</p>
+ *
+ * <p>The values are read through the accessors generated for a class
+ * annotated with {@link CompiledToString}, if there are any. Otherwise
+ * a getter is called by a function spun by {@link LambdaMetafactory},
+ * which invokes it directly, as a lambda expression would. The fields,
+ * and the getters, for which no function can be spun, are read through
+ * {@link MethodHandle}s held by the accessors. Such a handle is not
+ * a constant to the JIT compiler, so it saves the access checks of core
+ * reflection only. If a handle cannot be created, the accessor falls
+ * back to core reflection.</p>
+ */
+final class ValueAccessors {
+
+    /**
+     * Logger
+     */
+    private static final Logger log =
+            Logger.getLogger(ValueAccessors.class.getName());
+
+    /**
+     * Type of all the accessor handles
+     */
+    private static final MethodType ACCESSOR_TYPE =
+            MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /**
+     * Generated accessors by the declaring class
+     */
+    private static final ClassValue<Optional<CompiledAccessors>> compiled =
+            new ClassValue<>() {
+                @Override
+                protected Optional<CompiledAccessors> computeValue(
+                        Class<?> type) {
+                    return Optional.ofNullable(loadCompiled(type));
+                }
+            };
+
+    private ValueAccessors() {
+    }
+
+    /**
+     * Creates the accessor for the given field.
+     *
+     * @param field the field, already made accessible
+     * @return the accessor
+     */
+    static ValueAccessor forField(Field field) {
+        Function<Object, Object> generated = compiled.get(
+                field.getDeclaringClass())
+                .map(accessors -> accessors.field(field.getName()))
+                .orElse(null);
+        if (generated != null) {
+            return generated::apply;
+        }
+
+        try {
+            MethodHandle handle = LOOKUP.unreflectGetter(field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            return new HandleAccessor(handle.asType(ACCESSOR_TYPE));
+        } catch (IllegalAccessException e) {
+            log.finer(() -> "No method handle for " + field + ": " + e);
+            return field::get;
+        }
+    }
+
+    /**
+     * Creates the accessor for the given getter.
+     *
+     * @param name the name of the property
+     * @param getter the getter
+     * @return the accessor
+     */
+    static ValueAccessor forGetter(String name, Method getter) {
+        Function<Object, Object> generated = compiled.get(
+                getter.getDeclaringClass())
+                .map(accessors -> accessors.getter(name))
+                .orElse(null);
+        if (generated != null) {
+            return generated::apply;
+        }
+
+        Function<Object, Object> spun = spin(getter);
+        if (spun != null) {
+            return spun::apply;
+        }
+
+        getter.trySetAccessible();
+        try {
+            return new HandleAccessor(
+                    LOOKUP.unreflect(getter).asType(ACCESSOR_TYPE));
+        } catch (IllegalAccessException e) {
+            log.finer(() -> "No method handle for " + getter + ": " + e);
+            return target -> invoke(getter, target);
+        }
+    }
+
+    /**
+     * Spins the function invoking the given getter.
+     *
+     * @param getter the getter
+     * @return the function, or <code>null</code> if the declaring class
+     *         is not accessible to spin it
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> spin(Method getter) {
+        Class<?> declaringClass = getter.getDeclaringClass();
+        try {
+            MethodHandles.Lookup lookup =
+                    MethodHandles.privateLookupIn(declaringClass, LOOKUP);
+            return (Function<Object, Object>) LambdaMetafactory.metafactory(
+                    lookup,
+                    "apply",
+                    MethodType.methodType(Function.class),
+                    ACCESSOR_TYPE,
+                    lookup.unreflect(getter),
+                    MethodType.methodType(Object.class, declaringClass))
+                    .getTarget()
+                    .invoke();
+        } catch (Throwable e) {
+            log.finer(() -> "No function spun for " + getter + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Loads the accessors generated for the given class.
+     *
+     * @param clazz the class declaring the fields and getters
+     * @return the generated accessors, or <code>null</code>
+     */
+    private static CompiledAccessors loadCompiled(Class<?> clazz) {
+        if (!clazz.isAnnotationPresent(CompiledToString.class)) {
+            return null;
+        }
+
+        try {
+            return Class.forName(
+                    clazz.getName() + CompiledAccessors.SUFFIX,
+                    true,
+                    clazz.getClassLoader())
+                    .asSubclass(CompiledAccessors.class)
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException
+                | ClassCastException
+                | LinkageError e) {
+            log.warning(() -> "No generated accessors for " + clazz
+                    + ", falling back to reflection: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Invokes the getter through reflection,
+     * rethrowing the exception thrown by the getter itself.
+     */
+    private static Object invoke(Method getter, Object target)
+            throws IllegalAccessException {
+
+        try {
+            return getter.invoke(target);
+        } catch (InvocationTargetException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    /**
+     * Rethrows the given exception, if it is unchecked.
+     *
+     * @param e the exception thrown by a getter
+     * @return the checked exception wrapped, to be thrown
+     */
+    static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new UndeclaredThrowableException(e);
+    }
+
+    /**
+     * Accessor reading through a method handle of type
+     * <code>(Object)Object</code>. The handle is held in a field, so
+     * the JIT compiler does not inline the target through it.
+     */
+    private static final class HandleAccessor implements ValueAccessor {
+
+        private final MethodHandle handle;
+
+        private HandleAccessor(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public Object get(Object target) {
+            try {
+                return handle.invokeExact(target);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.srnjak.utils.tostring.builder.processor;
+
+import com.srnjak.utils.tostring.builder.CompiledAccessors;
+import com.srnjak.utils.tostring.builder.CompiledToString;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Generates {@link CompiledAccessors} for the classes annotated with
+ * {@link CompiledToString}.</p>
+ *
+ * <p>Accessors are generated for the non-private fields and the
+ * non-private getters declared by the class, the same fields and
+ * properties {@link com.srnjak.utils.tostring.builder.ToStringByFieldsBuilder}
+ * and {@link com.srnjak.utils.tostring.builder.ToStringByGettersBuilder}
+ * would append. Members excluded by
+ * {@link com.srnjak.utils.tostring.builder.ToStringExclude} or Apache's
+ * {@link org.apache.commons.lang3.builder.ToStringExclude} are skipped.
+ * Getters throwing checked exceptions are left to reflection.</p>
+ */
+@SupportedAnnotationTypes("com.srnjak.utils.tostring.builder.CompiledToString")
+public class CompiledToStringProcessor extends AbstractProcessor {
+
+    private static final String TO_STRING_EXCLUDE =
+            "com.srnjak.utils.tostring.builder.ToStringExclude";
+
+    private static final String LANG3_TO_STRING_EXCLUDE =
+            "org.apache.commons.lang3.builder.ToStringExclude";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean process(
+            Set<? extends TypeElement> annotations,
+            RoundEnvironment roundEnv) {
+
+        for (Element element :
+                roundEnv.getElementsAnnotatedWith(CompiledToString.class)) {
+
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@CompiledToString is applicable to classes");
+                continue;
+            }
+
+            TypeElement type = (TypeElement) element;
+            if (!isAccessibleFromPackage(type)) {
+                error(type, "@CompiledToString class must not be private,"
+                        + " local or anonymous");
+                continue;
+            }
+
+            try {
+                generate(type);
+            } catch (IOException e) {
+                error(type, "Cannot generate accessors: " + e);
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        PackageElement pkg =
+                processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = pkg.isUnnamed()
+                ? ""
+                : pkg.getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils()
+                .getBinaryName(type).toString();
+        String simpleName = (packageName.isEmpty()
+                ? binaryName
+                : binaryName.substring(packageName.length() + 1))
+                + CompiledAccessors.SUFFIX;
+        String typeName = processingEnv.getTypeUtils()
+                .erasure(type.asType()).toString();
+
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler()
+                .createSourceFile(
+                        packageName.isEmpty()
+                                ? simpleName
+                                : packageName + "." + simpleName,
+                        type)
+                .openWriter())) {
+
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("@javax.annotation.processing.Generated(\""
+                    + getClass().getName() + "\")");
+            out.println("@SuppressWarnings({\"rawtypes\", \"unchecked\"})");
+            out.println("public final class " + simpleName
+                    + " implements " + CompiledAccessors.class.getName()
+                    + " {");
+            out.println();
+
+            out.println("    @Override");
+            out.println("    public java.util.function.Function<Object, Object>"
+                    + " field(String name) {");
+            out.println("        switch (name) {");
+            for (VariableElement field :
+                    ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                if (isAccessibleField(field)) {
+                    String name = field.getSimpleName().toString();
+                    out.println("            case \"" + name + "\":");
+                    out.println("                return target -> "
+                            + (field.getModifiers().contains(Modifier.STATIC)
+                                    ? typeName
+                                    : "((" + typeName + ") target)")
+                            + "." + name + ";");
+                }
+            }
+            out.println("            default:");
+            out.println("                return null;");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+
+            out.println("    @Override");
+            out.println("    public java.util.function.Function<Object, Object>"
+                    + " getter(String name) {");
+            out.println("        switch (name) {");
+            for (Map.Entry<String, ExecutableElement> getter :
+                    getters(type).entrySet()) {
+                out.println("            case \"" + getter.getKey() + "\":");
+                out.println("                return target -> ((" + typeName
+                        + ") target)." + getter.getValue().getSimpleName()
+                        + "();");
+            }
+            out.println("            default:");
+            out.println("                return null;");
+            out.println("        }");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    /**
+     * Collects the getters declared by the type, by the property name.
+     * As in <code>java.beans.Introspector</code>, an <code>is</code>
+     * getter takes precedence over a <code>get</code> getter.
+     */
+    private Map<String, ExecutableElement> getters(TypeElement type) {
+        Map<String, ExecutableElement> getters = new LinkedHashMap<>();
+        for (ExecutableElement method :
+                ElementFilter.methodsIn(type.getEnclosedElements())) {
+
+            String name = method.getSimpleName().toString();
+            Set<Modifier> modifiers = method.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)
+                    || modifiers.contains(Modifier.STATIC)
+                    || !method.getParameters().isEmpty()
+                    || !method.getTypeParameters().isEmpty()
+                    || !method.getThrownTypes().isEmpty()
+                    || isExcluded(method)) {
+                continue;
+            }
+
+            TypeKind returnKind = method.getReturnType().getKind();
+            if (name.startsWith("is") && name.length() > 2
+                    && returnKind == TypeKind.BOOLEAN) {
+                getters.put(decapitalize(name.substring(2)), method);
+            } else if (name.startsWith("get") && name.length() > 3
+                    && returnKind != TypeKind.VOID) {
+                getters.putIfAbsent(decapitalize(name.substring(3)), method);
+            }
+        }
+        return getters;
+    }
+
+    private boolean isAccessibleField(VariableElement field) {
+        return !field.getModifiers().contains(Modifier.PRIVATE)
+                && field.getSimpleName().toString().indexOf('$') == -1
+                && !isExcluded(field);
+    }
+
+    private static boolean isAccessibleFromPackage(TypeElement type) {
+        for (Element element = type;
+                element instanceof TypeElement;
+                element = element.getEnclosingElement()) {
+
+            TypeElement enclosing = (TypeElement) element;
+            if (enclosing.getModifiers().contains(Modifier.PRIVATE)
+                    || enclosing.getNestingKind() == NestingKind.LOCAL
+                    || enclosing.getNestingKind() == NestingKind.ANONYMOUS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isExcluded(Element element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            String name = ((TypeElement) annotation.getAnnotationType()
+                    .asElement()).getQualifiedName().toString();
+            if (TO_STRING_EXCLUDE.equals(name)
+                    || LANG3_TO_STRING_EXCLUDE.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same as <code>java.beans.Introspector.decapitalize</code>.
+     */
+    private static String decapitalize(String name) {
+        if (name.length() > 1
+                && Character.isUpperCase(name.charAt(1))
+                && Character.isUpperCase(name.charAt(0))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager()
+                .printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,163 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryRecordsTest {
+
+    static class Primitives {
+        boolean flag = true;
+        byte b = Byte.MIN_VALUE;
+        short s = -300;
+        char c = '\u017e';
+        int i = Integer.MIN_VALUE;
+        int small = -1;
+        long l = Long.MAX_VALUE;
+        long negative = Long.MIN_VALUE;
+        float f = Float.NaN;
+        double d = -0.0;
+    }
+
+    static class References {
+        Object nothing = null;
+        String empty = "";
+        String text = "\u010d\u0161\u017e \u20ac \ud83d\ude00";
+        Integer boxed = -42;
+        Long big = 1L << 40;
+        Character character = 'x';
+        Boolean bool = false;
+        Double fraction = 0.1;
+        int[] ints = {0, -1, Integer.MAX_VALUE};
+        String[] strings = {"a", null, "c"};
+        Object[] nested = {1, "two", new long[] {3L}, null};
+        List<String> list = List.of("x", "y");
+        Thread.State state = Thread.State.NEW;
+    }
+
+    static class Base {
+        String inherited = "base";
+    }
+
+    static class Derived extends Base {
+        static String constant = "static";
+        transient String derived = "transient";
+        @ToStringExclude
+        String excluded = "excluded";
+        String own = "own";
+    }
+
+    static class Empty {
+    }
+
+    static class Cyclic {
+        Object self = this;
+        Object[] array = new Object[1];
+
+        Cyclic() {
+            array[0] = array;
+        }
+    }
+
+    @Test
+    void decodesPrimitivesAsBuilt() {
+        assertRoundTrip(new Primitives());
+    }
+
+    @Test
+    void decodesReferencesAsBuilt() {
+        assertRoundTrip(new References());
+    }
+
+    @Test
+    void decodesInheritedFieldsAsBuilt() {
+        assertRoundTrip(new Derived());
+    }
+
+    @Test
+    void decodesEmptyObjectAsBuilt() {
+        assertRoundTrip(new Empty());
+    }
+
+    @Test
+    void decodesSelfReferencesAsBuilt() {
+        assertRoundTrip(new Cyclic());
+    }
+
+    @Test
+    void decodesArraysAsBuilt() {
+        assertRoundTrip(new int[] {1, -2, 3});
+        assertRoundTrip(new Object[] {"a", null, new double[] {1.5}});
+    }
+
+    @Test
+    void decodesRecordsInOrder() {
+        BinaryRecords records = new BinaryRecords();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        Object[] objects = {
+                new Primitives(), new Derived(), new Primitives()};
+        for (Object object : objects) {
+            records.encode(object, buffer);
+        }
+
+        buffer.flip();
+        for (Object object : objects) {
+            assertEquals(
+                    ToStringByFieldsBuilder.toString(object),
+                    records.decode(buffer));
+        }
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    void decodesWithSchemasReadBack() {
+        BinaryRecords records = new BinaryRecords();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        References references = new References();
+        Derived derived = new Derived();
+        records.encode(references, buffer);
+        records.encode(derived, buffer);
+        buffer.flip();
+
+        ByteBuffer schemas = ByteBuffer.allocate(4096);
+        records.writeSchemas(schemas);
+        schemas.flip();
+        BinaryRecords elsewhere = BinaryRecords.readSchemas(schemas);
+
+        assertEquals(
+                ToStringByFieldsBuilder.toString(references),
+                elsewhere.decode(buffer));
+        assertEquals(
+                ToStringByFieldsBuilder.toString(derived),
+                elsewhere.decode(buffer));
+    }
+
+    @Test
+    void keepsPositionOnOverflow() {
+        BinaryRecords records = new BinaryRecords();
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.put((byte) 1);
+
+        assertThrows(
+                BufferOverflowException.class,
+                () -> records.encode(new References(), buffer));
+        assertEquals(1, buffer.position());
+    }
+
+    private static void assertRoundTrip(Object object) {
+        BinaryRecords records = new BinaryRecords();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        records.encode(object, buffer);
+        buffer.flip();
+
+        assertEquals(
+                ToStringByFieldsBuilder.toString(object),
+                records.decode(buffer));
+        assertEquals(0, buffer.remaining());
+    }
+}
@@ -0,0 +1,137 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BufferDrainTest {
+
+    static class Small {
+        private final String name = "small";
+        private final int count = 3;
+
+        public String getName() {
+            return this.name;
+        }
+
+        public int getCount() {
+            return this.count;
+        }
+    }
+
+    static class Wide {
+        private final String first = StringUtils.repeat('a', 3000);
+        private final String second = StringUtils.repeat('b', 3000);
+        private final String third = StringUtils.repeat('c', 3000);
+        private final List<String> items = new ArrayList<>(
+                Collections.nCopies(2000, "item"));
+        private final String last = StringUtils.repeat('z', 9000);
+
+        public String getFirst() {
+            return this.first;
+        }
+
+        public String getSecond() {
+            return this.second;
+        }
+
+        public String getThird() {
+            return this.third;
+        }
+
+        public List<String> getItems() {
+            return this.items;
+        }
+
+        public String getLast() {
+            return this.last;
+        }
+    }
+
+    @Test
+    void streamsSmallOutputAsBuilt() throws IOException {
+        assertStreamedAsBuilt(new Small(), ToStringStyle.DEFAULT_STYLE);
+    }
+
+    @Test
+    void streamsOutputCrossingThresholdAsBuilt() throws IOException {
+        Wide wide = new Wide();
+        assertTrue(new ToStringByFieldsBuilder(wide).toString().length()
+                > 2 * BufferDrain.THRESHOLD);
+
+        assertStreamedAsBuilt(wide, ToStringStyle.DEFAULT_STYLE);
+        assertStreamedAsBuilt(wide, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+
+    @Test
+    void streamsTrailingSeparatorsAsBuilt() throws IOException {
+        Wide wide = new Wide();
+
+        assertStreamedAsBuilt(wide, ToStringStyle.MULTI_LINE_STYLE);
+        assertStreamedAsBuilt(wide, RecursiveStyle.builder().build());
+        assertStreamedAsBuilt(wide, JsonStyle.builder().build());
+    }
+
+    @Test
+    void streamsIntoWriterAsBuilt() throws IOException {
+        Wide wide = new Wide();
+        ToStringStyle style = RecursiveStyle.builder().build();
+
+        assertEquals(
+                new ToStringByFieldsBuilder(wide, style).toString(),
+                ToStringByFieldsBuilder.appendTo(
+                        new StringWriter(), wide, style).toString());
+    }
+
+    @Test
+    void drainsBeforeTheEnd() throws IOException {
+        Wide wide = new Wide();
+        List<String> parts = new ArrayList<>();
+        Appendable target = new Appendable() {
+            @Override
+            public Appendable append(CharSequence csq) {
+                parts.add(csq.toString());
+                return this;
+            }
+
+            @Override
+            public Appendable append(CharSequence csq, int start, int end) {
+                return this.append(csq.subSequence(start, end));
+            }
+
+            @Override
+            public Appendable append(char c) {
+                return this.append(String.valueOf(c));
+            }
+        };
+
+        ToStringByFieldsBuilder.appendTo(target, wide, null);
+
+        assertTrue(parts.size() > 1);
+        assertEquals(
+                new ToStringByFieldsBuilder(wide).toString(),
+                String.join("", parts));
+    }
+
+    private static void assertStreamedAsBuilt(Object object, ToStringStyle style)
+            throws IOException {
+
+        assertEquals(
+                new ToStringByFieldsBuilder(object, style).toString(),
+                ToStringByFieldsBuilder.appendTo(
+                        new StringBuilder(), object, style).toString());
+        assertEquals(
+                new ToStringByGettersBuilder(object, style).toString(),
+                ToStringByGettersBuilder.appendTo(
+                        new StringBuilder(), object, style).toString());
+    }
+}
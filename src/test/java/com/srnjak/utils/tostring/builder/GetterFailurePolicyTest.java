@@ -0,0 +1,134 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GetterFailurePolicyTest {
+
+    static class Flaky {
+        private int calls;
+        private boolean failing = true;
+
+        public String getName() {
+            return "flaky";
+        }
+
+        public String getValue() {
+            this.calls++;
+            if (this.failing) {
+                throw new IllegalStateException("not loaded");
+            }
+            return "loaded";
+        }
+    }
+
+    @BeforeEach
+    void forgetFailures() {
+        ToStringByGettersBuilder.clearCache();
+    }
+
+    @AfterEach
+    void restoreDefault() {
+        ToStringByGettersBuilder.useGetterFailurePolicy(
+                GetterFailurePolicy.INVOKE);
+        ToStringByGettersBuilder.clearCache();
+    }
+
+    @Test
+    void invokesFailingGetterOnEachOutputByDefault() {
+        Flaky flaky = new Flaky();
+
+        for (int i = 1; i <= 3; i++) {
+            assertTrue(render(flaky).contains("<N/A>"));
+            assertEquals(i, flaky.calls);
+        }
+    }
+
+    @Test
+    void marksFailingGetterWithoutInvokingIt() {
+        ToStringByGettersBuilder.useGetterFailurePolicy(
+                GetterFailurePolicy.MARK);
+        Flaky flaky = new Flaky();
+
+        assertTrue(render(flaky).contains("<N/A>"));
+        assertEquals(1, flaky.calls);
+
+        flaky.failing = false;
+        assertTrue(render(flaky).contains("<N/A>"));
+        assertTrue(render(flaky).contains("name=flaky"));
+        assertEquals(1, flaky.calls);
+
+        Flaky other = new Flaky();
+        assertTrue(render(other).contains("<N/A>"));
+        assertEquals(0, other.calls);
+    }
+
+    @Test
+    void skipsFailingGetterWithoutInvokingIt() {
+        ToStringByGettersBuilder.useGetterFailurePolicy(
+                GetterFailurePolicy.SKIP);
+        Flaky flaky = new Flaky();
+
+        assertTrue(render(flaky).contains("<N/A>"));
+
+        String skipped = render(flaky);
+        assertFalse(skipped.contains("<N/A>"));
+        assertFalse(skipped.contains("value"));
+        assertTrue(skipped.contains("name=flaky"));
+        assertEquals(1, flaky.calls);
+    }
+
+    @Test
+    void retriesFailingGetterAfterOutputs() {
+        ToStringByGettersBuilder.useGetterFailurePolicy(
+                GetterFailurePolicy.retryAfter(2));
+        Flaky flaky = new Flaky();
+
+        assertTrue(render(flaky).contains("<N/A>"));
+        assertTrue(render(flaky).contains("<N/A>"));
+        assertTrue(render(flaky).contains("<N/A>"));
+        assertEquals(1, flaky.calls);
+
+        assertTrue(render(flaky).contains("<N/A>"));
+        assertEquals(2, flaky.calls);
+
+        assertTrue(render(flaky).contains("<N/A>"));
+        assertTrue(render(flaky).contains("<N/A>"));
+        assertEquals(2, flaky.calls);
+
+        flaky.failing = false;
+        assertTrue(render(flaky).contains("value=loaded"));
+        assertTrue(render(flaky).contains("value=loaded"));
+        assertEquals(4, flaky.calls);
+    }
+
+    @Test
+    void appliesPolicyOfRenderer() {
+        ToStringRenderer renderer = ToStringRenderer.byGetters()
+                .getterFailurePolicy(GetterFailurePolicy.MARK)
+                .build();
+        Flaky flaky = new Flaky();
+
+        assertTrue(renderer.toString(flaky).contains("<N/A>"));
+        assertTrue(renderer.toString(flaky).contains("<N/A>"));
+        assertEquals(1, flaky.calls);
+    }
+
+    @Test
+    void refusesRetryWithoutOutputs() {
+        assertThrows(IllegalArgumentException.class,
+                () -> GetterFailurePolicy.retryAfter(0));
+    }
+
+    private static String render(Object object) {
+        return new ToStringByGettersBuilder(
+                object, ToStringStyle.DEFAULT_STYLE).toString();
+    }
+}
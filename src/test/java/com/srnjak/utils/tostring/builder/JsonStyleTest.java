@@ -0,0 +1,233 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonStyleTest {
+
+    static class Tags {
+        Map<String, List<String>> tags = new HashMap<>();
+    }
+
+    static class Names {
+        List<String> names = new ArrayList<>(List.of("v"));
+    }
+
+    static class Node {
+        String name = "root";
+        Map<String, Object> links = new HashMap<>();
+    }
+
+    static class Limited {
+        String text = "abcdef";
+        int[] numbers = {1, 2, 3, 4};
+        List<String> items = new ArrayList<>(List.of("x", "y", "z"));
+        Map<String, Integer> counts = new LinkedHashMap<>(
+                Map.of("a", 1));
+        byte[] bytes = {1, 2, 3};
+    }
+
+    @Test
+    void rendersNestedCollections() {
+        Tags tags = new Tags();
+        tags.tags.put("k", new ArrayList<>(List.of("v")));
+
+        assertEquals(
+                "{\"tags\":{\"k\":[\"v\"]}}",
+                ToStringByFieldsBuilder.toString(
+                        tags, JsonStyle.builder().build()));
+    }
+
+    @Test
+    void leavesNoCollectionRegistered() {
+        Tags tags = new Tags();
+        tags.tags.put("k", new ArrayList<>(List.of("v")));
+        ToStringByFieldsBuilder.toString(tags, JsonStyle.builder().build());
+
+        assertEquals(
+                "[names=[v]]",
+                ToStringByFieldsBuilder.toString(
+                        new Names(), ToStringStyle.NO_CLASS_NAME_STYLE));
+    }
+
+    @Test
+    void referencesCycleThroughMapValue() {
+        Node node = new Node();
+        List<Object> list = new ArrayList<>();
+        list.add(new Object[] {list});
+        node.links.put("list", list);
+
+        String json = ToStringByFieldsBuilder.toString(
+                node, JsonStyle.builder().build());
+
+        assertEquals(
+                "{\"name\":\"root\",\"links\":{\"list\":[[\""
+                        + list.getClass().getName() + "@"
+                        + Integer.toHexString(System.identityHashCode(list))
+                        + "\"]]}}",
+                json);
+    }
+
+    @Test
+    void elidesStringWithinQuotes() {
+        assertEquals(
+                "{\"text\":\"abc...\",\"numbers\":[1,2,3,4],"
+                        + "\"items\":[\"x\",\"y\",\"z\"],"
+                        + "\"counts\":{\"a\":1},\"bytes\":[1,2,3]}",
+                ToStringByFieldsBuilder.toString(
+                        new Limited(),
+                        JsonStyle.builder().maxStringLength(3).build()));
+    }
+
+    @Test
+    void elidesElementsAsString() {
+        Limited limited = new Limited();
+        limited.counts.put("b", 2);
+
+        assertEquals(
+                "{\"text\":\"abcdef\",\"numbers\":[1,2,\"...\"],"
+                        + "\"items\":[\"x\",\"y\",\"...\"],"
+                        + "\"counts\":{\"a\":1,\"b\":2},"
+                        + "\"bytes\":[1,2,\"...\"]}",
+                ToStringByFieldsBuilder.toString(
+                        limited,
+                        JsonStyle.builder()
+                                .maxArrayLength(2)
+                                .maxElements(2)
+                                .build()));
+    }
+
+    @Test
+    void elidesEntriesAsMember() {
+        Limited limited = new Limited();
+        limited.counts.put("b", 2);
+
+        assertEquals(
+                "{\"counts\":{\"a\":1,\"...\":\"...\"}}",
+                fieldOf(ToStringByFieldsBuilder.toString(
+                        limited,
+                        JsonStyle.builder().maxElements(1).build()),
+                        "counts"));
+    }
+
+    @Test
+    void elidesFieldsAsMember() {
+        String json = ToStringByFieldsBuilder.toString(
+                new Limited(), JsonStyle.builder().maxLength(20).build());
+
+        assertTrue(json.startsWith("{\"text\":\"abcdef\","), json);
+        assertTrue(json.endsWith(",\"...\":\"...\"}"), json);
+        assertBalanced(json);
+    }
+
+    @Test
+    void escapesElisionMarker() {
+        assertEquals(
+                "{\"items\":[\"x\",\"\\\"cut\\\"\"]}",
+                fieldOf(ToStringByFieldsBuilder.toString(
+                        new Limited(),
+                        JsonStyle.builder()
+                                .maxElements(1)
+                                .elisionMarker("\"cut\"")
+                                .build()),
+                        "items"));
+    }
+
+    @Test
+    void elidesByteDigitsWithinQuotes() {
+        String json = ToStringByFieldsBuilder.toString(
+                new Limited(),
+                JsonStyle.builder()
+                        .byteArrayFormat(RecursiveStyle.ByteArrayFormat.HEX)
+                        .maxArrayLength(2)
+                        .build());
+
+        assertTrue(json.endsWith("\"bytes\":\"0102...\"}"), json);
+    }
+
+    @Test
+    void keepsOutputValidWithinEachLength() {
+        String full = ToStringByFieldsBuilder.toString(
+                new Limited(), JsonStyle.builder().build());
+
+        for (int maxLength = 1; maxLength <= full.length(); maxLength++) {
+            String json = ToStringByFieldsBuilder.toString(
+                    new Limited(),
+                    JsonStyle.builder().maxLength(maxLength).build());
+
+            assertBalanced(json);
+        }
+    }
+
+    /**
+     * Returns the member of the given name, enclosed in braces.
+     */
+    private static String fieldOf(String json, String name) {
+        int start = json.indexOf("\"" + name + "\":");
+        int depth = 0;
+        boolean quoted = false;
+        int end = start + name.length() + 3;
+        for (; end < json.length(); end++) {
+            char c = json.charAt(end);
+            if (c == '\\') {
+                end++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && (c == '{' || c == '[')) {
+                depth++;
+            } else if (!quoted && (c == '}' || c == ']')) {
+                depth--;
+            }
+            if (depth == 0 && !quoted) {
+                break;
+            }
+        }
+        return "{" + json.substring(start, end + 1) + "}";
+    }
+
+    /**
+     * Asserts that the brackets and the quotes are balanced, and that no
+     * value is missing around the separators.
+     */
+    private static void assertBalanced(String json) {
+        StringBuilder open = new StringBuilder();
+        boolean quoted = false;
+        char last = ' ';
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (quoted) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                }
+                continue;
+            }
+            if (c == '"') {
+                quoted = true;
+            } else if (c == '{' || c == '[') {
+                open.append(c);
+            } else if (c == '}' || c == ']') {
+                assertTrue(open.length() > 0, json);
+                assertEquals(c == '}' ? '{' : '[',
+                        open.charAt(open.length() - 1), json);
+                assertTrue(last != ',' && last != ':', json);
+                open.setLength(open.length() - 1);
+            } else if (c == ',' || c == ':') {
+                assertTrue(last != ',' && last != ':'
+                        && last != '{' && last != '[', json);
+            }
+            last = c;
+        }
+        assertTrue(!quoted && open.length() == 0, json);
+    }
+}
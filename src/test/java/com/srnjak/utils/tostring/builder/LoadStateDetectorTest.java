@@ -0,0 +1,106 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadStateDetectorTest {
+
+    static class Entity {
+        private int calls;
+
+        public String getName() {
+            return "entity";
+        }
+
+        public String getOrders() {
+            this.calls++;
+            return "orders";
+        }
+    }
+
+    /**
+     * Fails for the orders, as a provider not knowing the entity might.
+     */
+    private static final LoadStateDetector FAILING = (object, name) -> {
+        if (name.equals("orders")) {
+            throw new IllegalStateException("unknown entity");
+        }
+        return true;
+    };
+
+    @BeforeEach
+    void forgetFailures() {
+        ToStringByGettersBuilder.clearCache();
+    }
+
+    @AfterEach
+    void restoreDefaults() {
+        ToStringByGettersBuilder.useLoadStateDetector(LoadStateDetector.NONE);
+        ToStringByGettersBuilder.useGetterFailurePolicy(
+                GetterFailurePolicy.INVOKE);
+        ToStringByGettersBuilder.clearCache();
+    }
+
+    @Test
+    void outputsNotLoadedPropertyWithoutInvokingGetter() {
+        ToStringByGettersBuilder.useLoadStateDetector(
+                (object, name) -> !name.equals("orders"));
+        Entity entity = new Entity();
+
+        String string = render(entity);
+
+        assertTrue(string.contains("orders=" + LoadStateDetector.NOT_LOADED));
+        assertTrue(string.contains("name=entity"));
+        assertEquals(0, entity.calls);
+    }
+
+    @Test
+    void reportsFailingDetectorAsNotAvailable() {
+        ToStringByGettersBuilder.useLoadStateDetector(FAILING);
+        Entity entity = new Entity();
+
+        String string = render(entity);
+
+        assertTrue(string.contains("<N/A>"));
+        assertTrue(string.contains("name=entity"));
+        assertEquals(0, entity.calls);
+    }
+
+    @Test
+    void doesNotRememberFailingDetectorAsFailingGetter() {
+        ToStringByGettersBuilder.useGetterFailurePolicy(
+                GetterFailurePolicy.MARK);
+        ToStringByGettersBuilder.useLoadStateDetector(FAILING);
+        Entity entity = new Entity();
+        render(entity);
+
+        ToStringByGettersBuilder.useLoadStateDetector(LoadStateDetector.NONE);
+
+        assertTrue(render(entity).contains("orders=orders"));
+        assertEquals(1, entity.calls);
+    }
+
+    @Test
+    void reportsFailingDetectorOfRendererAsNotAvailable() {
+        ToStringRenderer renderer = ToStringRenderer.byGetters()
+                .loadStateDetector(FAILING)
+                .build();
+        Entity entity = new Entity();
+
+        String string = renderer.toString(entity);
+
+        assertTrue(string.contains("<N/A>"));
+        assertTrue(string.contains("name=entity"));
+        assertEquals(0, entity.calls);
+    }
+
+    private static String render(Object object) {
+        return new ToStringByGettersBuilder(
+                object, ToStringStyle.DEFAULT_STYLE).toString();
+    }
+}
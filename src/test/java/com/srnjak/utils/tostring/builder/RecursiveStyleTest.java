@@ -0,0 +1,304 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecursiveStyleTest {
+
+    /**
+     * Returns an iterator, which fails after the given items.
+     */
+    static <T> Iterator<T> failingAfter(List<T> items) {
+        Iterator<T> iterator = items.iterator();
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!iterator.hasNext()) {
+                    throw new IllegalStateException("broken");
+                }
+                return iterator.next();
+            }
+        };
+    }
+
+    static class FailingList extends ArrayList<String> {
+        private static final long serialVersionUID = 1L;
+
+        FailingList() {
+            super(List.of("v"));
+        }
+
+        @Override
+        public Object[] toArray() {
+            throw new IllegalStateException("broken");
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return failingAfter(List.of("v"));
+        }
+    }
+
+    static class FailingMap extends AbstractMap<String, String> {
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<Entry<String, String>>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return failingAfter(List.of(Map.entry("k", "v")));
+                }
+
+                @Override
+                public int size() {
+                    return 2;
+                }
+            };
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+
+    static class Holder {
+        private final String name = "a";
+        private final Object items;
+
+        Holder(Object items) {
+            this.items = items;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public Object getItems() {
+            return this.items;
+        }
+    }
+
+    static class Shared {
+        private final String v = "content";
+    }
+
+    static class Sharing {
+        private final Shared first;
+        private final Shared second;
+
+        Sharing(Shared shared) {
+            this.first = shared;
+            this.second = shared;
+        }
+    }
+
+    static class Dated {
+        private final LocalDate date = LocalDate.of(2020, 1, 1);
+    }
+
+    static class Parent {
+        private final String name = "parent";
+        private final List<Object> children = new ArrayList<>();
+        private final Map<String, Object> byName = new LinkedHashMap<>();
+
+        Parent(int count) {
+            for (int i = 0; i < count; i++) {
+                Child child = new Child(this, i);
+                this.children.add(child);
+                this.byName.put("child" + i, child);
+            }
+            this.children.add(count / 2, new Object[] {this.children});
+            this.byName.put("parent", this);
+        }
+    }
+
+    static class Child {
+        private final Parent parent;
+        private final int index;
+
+        Child(Parent parent, int index) {
+            this.parent = parent;
+            this.index = index;
+        }
+    }
+
+    @Test
+    void reportsFailingCollectionWithoutPartialOutput() {
+        Holder holder = new Holder(new FailingList());
+
+        assertEquals(
+                "[name=a,<N/A>]",
+                this.fieldsOf(ToStringByFieldsBuilder.toString(
+                        holder, RecursiveStyle.builder().build())));
+    }
+
+    @Test
+    void reportsFailingMapWithoutPartialOutput() {
+        Holder holder = new Holder(new FailingMap());
+
+        assertEquals(
+                "[<N/A>,name=a,class=" + Holder.class + "]",
+                this.fieldsOf(new ToStringByGettersBuilder(
+                        holder, RecursiveStyle.builder().build()).toString()));
+    }
+
+    @Test
+    void referencesObjectVisitedWithinOutput() {
+        String string = ToStringByFieldsBuilder.toString(
+                new Sharing(new Shared()), visitedStyle());
+
+        assertTrue(string.contains("first=" + Shared.class.getName()));
+        assertTrue(string.contains("[v=content]"));
+        assertEquals(string.indexOf("[v=content]"),
+                string.lastIndexOf("[v=content]"));
+    }
+
+    @Test
+    void forgetsVisitedObjectsAfterFailingNestedObject() {
+        ToStringStyle style = visitedStyle();
+
+        assertTrue(ToStringByFieldsBuilder.toString(new Dated(), style)
+                .contains("<N/A>"));
+
+        Shared shared = new Shared();
+        for (int i = 0; i < 2; i++) {
+            assertTrue(ToStringByFieldsBuilder.toString(
+                    new Sharing(shared), style).contains("[v=content]"));
+        }
+    }
+
+    @Test
+    void forgetsVisitedObjectsAfterRepeatedToString() {
+        ToStringStyle style = visitedStyle();
+        Shared shared = new Shared();
+
+        ToStringByFieldsBuilder builder =
+                new ToStringByFieldsBuilder(new Sharing(shared), style);
+        builder.toString();
+        builder.toString();
+
+        assertTrue(ToStringByFieldsBuilder.toString(new Sharing(shared), style)
+                .contains("[v=content]"));
+    }
+
+    @Test
+    void rendersStringsAndWrappersAsValues() {
+        RecursiveStyle style = RecursiveStyle.builder()
+                .acceptPackages("java.lang")
+                .toStringBuilder(ToStringByFieldsBuilder.class)
+                .build();
+
+        assertEquals(false, style.accept(String.class));
+        assertEquals(false, style.accept(Integer.class));
+        assertEquals(true, style.accept(Thread.class));
+        assertEquals(
+                "[name=a,items=42]",
+                this.fieldsOf(ToStringByFieldsBuilder.toString(
+                        new Holder(42), style)));
+    }
+
+    @Test
+    void rendersInParallelAsInCallingThread() {
+        Parent parent = new Parent(200);
+
+        String sequential = ToStringByFieldsBuilder.toString(
+                parent, parentStyle(RecursiveStyle.builder()));
+        String parallel = ToStringByFieldsBuilder.toString(
+                parent, parentStyle(RecursiveStyle.builder()
+                        .parallelThreshold(2)));
+
+        assertTrue(sequential.contains("index=199]"));
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void elidesInParallelAsInCallingThread() {
+        Parent parent = new Parent(200);
+
+        String sequential = ToStringByFieldsBuilder.toString(
+                parent, parentStyle(RecursiveStyle.builder()
+                        .maxElements(150)));
+        String parallel = ToStringByFieldsBuilder.toString(
+                parent, parentStyle(RecursiveStyle.builder()
+                        .maxElements(150)
+                        .parallelThreshold(2)));
+
+        assertTrue(sequential.contains("index=149]"));
+        assertFalse(sequential.contains("index=150]"));
+        assertTrue(sequential.contains("..."));
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void forgetsRenderedObjectsAfterFailingNestedObject() {
+        LocalDate date = LocalDate.of(2020, 1, 1);
+        List<Object> dates = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            dates.add(date);
+        }
+        ToStringStyle style = RecursiveStyle.builder()
+                .acceptPackages("java.time")
+                .toStringBuilder(ToStringByFieldsBuilder.class)
+                .parallelThreshold(2)
+                .build();
+
+        assertTrue(ToStringByFieldsBuilder.toString(new Holder(date), style)
+                .contains("<N/A>"));
+
+        Holder holder = new Holder(dates);
+        String parallel = ToStringByFieldsBuilder.toString(holder, style);
+        assertFalse(parallel.contains(LocalDate.class.getName() + "@"));
+        assertEquals(
+                ToStringByFieldsBuilder.toString(
+                        holder,
+                        RecursiveStyle.builder()
+                                .acceptPackages("java.time")
+                                .toStringBuilder(ToStringByFieldsBuilder.class)
+                                .build()),
+                parallel);
+    }
+
+    private static ToStringStyle parentStyle(RecursiveStyle.Builder builder) {
+        return builder
+                .acceptClasses(Parent.class, Child.class)
+                .toStringBuilder(ToStringByFieldsBuilder.class)
+                .build();
+    }
+
+    private static ToStringStyle visitedStyle() {
+        return RecursiveStyle.builder()
+                .acceptClasses(Shared.class)
+                .acceptPackages("java.time")
+                .toStringBuilder(ToStringByFieldsBuilder.class)
+                .referenceVisited(true)
+                .build();
+    }
+
+    private String fieldsOf(String string) {
+        return string.substring(string.indexOf('['));
+    }
+}
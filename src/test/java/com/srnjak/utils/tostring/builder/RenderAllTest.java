@@ -0,0 +1,155 @@
+package com.srnjak.utils.tostring.builder;
+
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RenderAllTest {
+
+    static class Item {
+        private final String name;
+        private final int count;
+
+        Item(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public int getCount() {
+            return this.count;
+        }
+    }
+
+    static class SpecialItem extends Item {
+        SpecialItem(String name, int count) {
+            super(name, count);
+        }
+
+        public boolean isSpecial() {
+            return true;
+        }
+    }
+
+    static class Pair {
+        private final Item left;
+        private final Item right;
+
+        Pair(Item item) {
+            this.left = item;
+            this.right = item;
+        }
+
+        public Item getLeft() {
+            return this.left;
+        }
+
+        public Item getRight() {
+            return this.right;
+        }
+    }
+
+    @Test
+    void rendersAsToStringJoinedBySeparator() throws IOException {
+        List<Item> items = Arrays.asList(
+                new Item("a", 1), null, new SpecialItem("b", 2), null);
+
+        for (ToStringStyle style : Arrays.asList(
+                null,
+                ToStringStyle.SHORT_PREFIX_STYLE,
+                ToStringStyle.MULTI_LINE_STYLE,
+                RecursiveStyle.builder().build(),
+                JsonStyle.builder().build())) {
+
+            assertEquals(
+                    joined(items, style, ";"),
+                    ToStringByGettersBuilder.renderAll(
+                            items, Item.class, style,
+                            new StringBuilder(), ";").toString());
+        }
+    }
+
+    @Test
+    void rendersIntoWriterAsToString() throws IOException {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(i % 10 == 0 ? null : new Item("item" + i, i));
+        }
+        items.set(50, new Item(String.join("", items.stream()
+                .map(String::valueOf)
+                .collect(Collectors.toList())), -1));
+
+        assertEquals(
+                joined(items, null, System.lineSeparator()),
+                ToStringByGettersBuilder.renderAll(
+                        items, Item.class, null, new StringWriter())
+                        .toString());
+    }
+
+    @Test
+    void rendersWithoutSeparator() throws IOException {
+        List<Item> items = Arrays.asList(new Item("a", 1), null);
+
+        assertEquals(
+                joined(items, null, ""),
+                ToStringByGettersBuilder.renderAll(
+                        items, Item.class, null,
+                        new StringBuilder(), null).toString());
+    }
+
+    @Test
+    void referencesVisitedObjectsAsToString() throws IOException {
+        Item item = new Item("shared", 1);
+        List<Pair> pairs = Arrays.asList(new Pair(item), new Pair(item));
+        ToStringStyle style = RecursiveStyle.builder()
+                .acceptClasses(Item.class)
+                .toStringBuilder(ToStringByGettersBuilder.class)
+                .referenceVisited(true)
+                .build();
+
+        assertEquals(
+                joined(pairs, style, ";"),
+                ToStringByGettersBuilder.renderAll(
+                        pairs, Pair.class, style,
+                        new StringBuilder(), ";").toString());
+    }
+
+    @Test
+    void refusesMissingArguments() {
+        List<Item> items = Arrays.asList(new Item("a", 1));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ToStringByGettersBuilder.renderAll(
+                        null, Item.class, null, new StringBuilder()));
+        assertThrows(IllegalArgumentException.class,
+                () -> ToStringByGettersBuilder.renderAll(
+                        items, null, null, new StringBuilder()));
+        assertThrows(IllegalArgumentException.class,
+                () -> ToStringByGettersBuilder.renderAll(
+                        items, Item.class, null, null));
+    }
+
+    private static String joined(
+            List<?> objects, ToStringStyle style, String separator) {
+        StringBuilder joined = new StringBuilder();
+        for (Object object : objects) {
+            joined.append(object == null
+                    ? new ToStringByGettersBuilder(null, style).toString()
+                    : new ToStringByGettersBuilder(object, style).toString());
+            joined.append(separator);
+        }
+        return joined.toString();
+    }
+}